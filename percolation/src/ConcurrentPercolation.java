@@ -0,0 +1,162 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Percolation that many threads can open and query at once without a lock.
+// Open sites are bits set by CAS in an atomic bitset and the two union-find
+// structures (with and without the virtual bottom, against backwash) are
+// lock-free ConcurrentUF instances.
+public class ConcurrentPercolation {
+  private final AtomicLongArray openBits;
+  private final int numberOfSites;
+  private final int rowSize;
+  private final int top;
+  private final int bottom;
+  private final ConcurrentUF unionFind;
+  private final ConcurrentUF noBottomUF;
+  private final AtomicInteger openSites;
+
+  // percolation is monotone, so once seen it is cached
+  private volatile boolean percolates;
+
+  // creates n-by-n grid, with all sites initially blocked
+  public ConcurrentPercolation(int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException(
+          "Number of sites is less than or equal to zero.");
+    }
+
+    rowSize = n;
+    numberOfSites = n * n;
+    top = numberOfSites;
+    bottom = numberOfSites + 1;
+
+    openBits = new AtomicLongArray((numberOfSites + 63) >>> 6);
+    unionFind = new ConcurrentUF(numberOfSites + 2);
+    noBottomUF = new ConcurrentUF(numberOfSites + 1);
+    openSites = new AtomicInteger();
+  }
+
+  // opens the site (row, col) if it is not open already
+  public void open(int row, int col) {
+    validateIndicies(row, col);
+
+    final int curr = convertTo1DIndex(row, col);
+    if (!markOpen(curr)) {
+      return;
+    }
+
+    openSites.incrementAndGet();
+
+    if (row == 1) {
+      unionFind.union(curr, top);
+      noBottomUF.union(curr, top);
+    }
+    if (row == rowSize) {
+      unionFind.union(curr, bottom);
+    }
+
+    // this site's bit is set before its neighbours are read, so of two
+    // neighbours opened at the same time at least one sees the other
+    if (row > 1) {
+      connectOpenNeighbor(curr, curr - rowSize);
+    }
+    if (row < rowSize) {
+      connectOpenNeighbor(curr, curr + rowSize);
+    }
+    if (col > 1) {
+      connectOpenNeighbor(curr, curr - 1);
+    }
+    if (col < rowSize) {
+      connectOpenNeighbor(curr, curr + 1);
+    }
+  }
+
+  // sets the open bit of the site, returns false if it was already set
+  private boolean markOpen(int index) {
+    final int word = index >>> 6;
+    final long bit = 1L << index;
+
+    while (true) {
+      final long bits = openBits.get(word);
+      if ((bits & bit) != 0) {
+        return false;
+      }
+      if (openBits.compareAndSet(word, bits, bits | bit)) {
+        return true;
+      }
+    }
+  }
+
+  private void connectOpenNeighbor(int curr, int neighbor) {
+    if (isOpen(neighbor)) {
+      unionFind.union(curr, neighbor);
+      noBottomUF.union(curr, neighbor);
+    }
+  }
+
+  private boolean isOpen(int index) {
+    return (openBits.get(index >>> 6) & (1L << index)) != 0;
+  }
+
+  // is the site (row, col) open?
+  public boolean isOpen(int row, int col) {
+    validateIndicies(row, col);
+    return isOpen(convertTo1DIndex(row, col));
+  }
+
+  // is the site (row, col) full?
+  public boolean isFull(int row, int col) {
+    validateIndicies(row, col);
+
+    final int index = convertTo1DIndex(row, col);
+    return isOpen(index) && noBottomUF.connected(index, top);
+  }
+
+  // returns the number of open sites
+  public int numberOfOpenSites() {
+    return openSites.get();
+  }
+
+  // does the system percolate?
+  public boolean percolates() {
+    if (!percolates && unionFind.connected(top, bottom)) {
+      percolates = true;
+    }
+    return percolates;
+  }
+
+  private void validateIndicies(int row, int col) {
+    if (row < 1 || row > rowSize || col < 1 || col > rowSize) {
+      throw new IllegalArgumentException();
+    }
+  }
+
+  private int convertTo1DIndex(int row, int col) {
+    return (row - 1) * rowSize + (col - 1);
+  }
+
+  // opens random sites from several threads until the grid percolates
+  public static void main(String[] args) throws InterruptedException {
+    final int n = Integer.parseInt(args[0]);
+    final int threads = Integer.parseInt(args[1]);
+    final ConcurrentPercolation percolation = new ConcurrentPercolation(n);
+
+    final Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      workers[t] = new Thread(() -> {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!percolation.percolates()) {
+          percolation.open(random.nextInt(1, n + 1), random.nextInt(1, n + 1));
+        }
+      });
+      workers[t].start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    System.out.println("open sites = " + percolation.numberOfOpenSites());
+    System.out.println("percolates = " + percolation.percolates());
+  }
+}
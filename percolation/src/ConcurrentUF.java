@@ -0,0 +1,83 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Lock-free union-find. Roots are linked with a single compareAndSet on the
+// parent slot, always lower priority under higher priority, so a root that
+// lost a race is simply looked up again. find() halves paths with CAS
+// writes that are never retried, so it never blocks or spins.
+public class ConcurrentUF {
+  private final AtomicIntegerArray parent;
+
+  // initializes n elements, each in its own component
+  public ConcurrentUF(int n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("n is negative");
+    }
+
+    parent = new AtomicIntegerArray(n);
+    for (int i = 0; i < n; i++) {
+      parent.set(i, i);
+    }
+  }
+
+  // returns the current root of the component containing p
+  public int find(int p) {
+    while (true) {
+      final int up = parent.get(p);
+      if (up == p) {
+        return p;
+      }
+
+      final int grandparent = parent.get(up);
+      if (grandparent != up) {
+        parent.compareAndSet(p, up, grandparent);
+      }
+      p = grandparent;
+    }
+  }
+
+  // are p and q in the same component?
+  public boolean connected(int p, int q) {
+    while (true) {
+      final int rootP = find(p);
+      final int rootQ = find(q);
+      if (rootP == rootQ) {
+        return true;
+      }
+
+      // rootP still being a root after rootQ was read means they differed
+      if (parent.get(rootP) == rootP) {
+        return false;
+      }
+    }
+  }
+
+  // merges the component containing p with the component containing q
+  public void union(int p, int q) {
+    while (true) {
+      final int rootP = find(p);
+      final int rootQ = find(q);
+      if (rootP == rootQ) {
+        return;
+      }
+
+      final boolean lower = priority(rootP) < priority(rootQ)
+          || (priority(rootP) == priority(rootQ) && rootP < rootQ);
+      final int child = lower ? rootP : rootQ;
+      final int root = lower ? rootQ : rootP;
+
+      if (parent.compareAndSet(child, child, root)) {
+        return;
+      }
+    }
+  }
+
+  // pseudo-random priority, so linking by it keeps trees shallow without a
+  // rank that would have to change together with the parent
+  private static int priority(int p) {
+    int h = p * 0x9E3779B9;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    return h;
+  }
+}
@@ -0,0 +1,176 @@
+import java.util.Arrays;
+
+public class FlaggedPercolation {
+  private static final byte OPEN = 1;
+  private static final byte TOP = 2;
+  private static final byte BOTTOM = 4;
+
+  // OPEN is kept per site, TOP and BOTTOM are only meaningful at roots
+  private final byte[] status;
+  private final int[] parent;
+  private final int[] size;
+  private final int rowSize;
+
+  private int openSites;
+  private int largestCluster;
+  private boolean percolates;
+
+  // creates n-by-n grid, with all sites initially blocked
+  public FlaggedPercolation(int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException(
+          "Number of sites is less than or equal to zero.");
+    }
+
+    rowSize = n;
+    final int numberOfSites = n * n;
+
+    status = new byte[numberOfSites];
+    parent = new int[numberOfSites];
+    size = new int[numberOfSites];
+    reset();
+  }
+
+  // blocks every site again, reusing the arrays of this grid
+  public void reset() {
+    Arrays.fill(status, (byte) 0);
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+      size[i] = 1;
+    }
+
+    openSites = 0;
+    largestCluster = 0;
+    percolates = false;
+  }
+
+  // opens the site (row, col) if it is not open already
+  public void open(int row, int col) {
+    validateIndicies(row, col);
+
+    final int curr = convertTo1DIndex(row, col);
+    if ((status[curr] & OPEN) != 0) {
+      return;
+    }
+
+    byte flags = OPEN;
+    if (row == 1) {
+      flags |= TOP;
+    }
+    if (row == rowSize) {
+      flags |= BOTTOM;
+    }
+
+    status[curr] = flags;
+    openSites++;
+
+    if (largestCluster == 0) {
+      largestCluster = 1;
+    }
+
+    if (flags == (OPEN | TOP | BOTTOM)) {
+      percolates = true;
+    }
+
+    if (row > 1) {
+      connectOpenNeighbor(curr, curr - rowSize);
+    }
+    if (row < rowSize) {
+      connectOpenNeighbor(curr, curr + rowSize);
+    }
+    if (col > 1) {
+      connectOpenNeighbor(curr, curr - 1);
+    }
+    if (col < rowSize) {
+      connectOpenNeighbor(curr, curr + 1);
+    }
+  }
+
+  private void connectOpenNeighbor(int curr, int neighbor) {
+    if ((status[neighbor] & OPEN) == 0) {
+      return;
+    }
+
+    final int p = find(curr);
+    final int q = find(neighbor);
+    if (p == q) {
+      return;
+    }
+
+    final int root;
+    if (size[p] < size[q]) {
+      parent[p] = q;
+      size[q] += size[p];
+      root = q;
+    } else {
+      parent[q] = p;
+      size[p] += size[q];
+      root = p;
+    }
+
+    if (size[root] > largestCluster) {
+      largestCluster = size[root];
+    }
+
+    status[root] |= status[p] | status[q];
+    if ((status[root] & (TOP | BOTTOM)) == (TOP | BOTTOM)) {
+      percolates = true;
+    }
+  }
+
+  // root of the site, halving the path on the way up
+  private int find(int p) {
+    while (p != parent[p]) {
+      parent[p] = parent[parent[p]];
+      p = parent[p];
+    }
+    return p;
+  }
+
+  // is the site (row, col) open?
+  public boolean isOpen(int row, int col) {
+    validateIndicies(row, col);
+    return (status[convertTo1DIndex(row, col)] & OPEN) != 0;
+  }
+
+  // is the site (row, col) full?
+  public boolean isFull(int row, int col) {
+    validateIndicies(row, col);
+
+    final int index = convertTo1DIndex(row, col);
+    if ((status[index] & OPEN) == 0) {
+      return false;
+    }
+
+    return (status[find(index)] & TOP) != 0;
+  }
+
+  // returns the number of open sites
+  public int numberOfOpenSites() {
+    return openSites;
+  }
+
+  // returns the number of sites in the largest open cluster
+  public int largestClusterSize() {
+    return largestCluster;
+  }
+
+  // does the system percolate?
+  public boolean percolates() {
+    return percolates;
+  }
+
+  private void validateIndicies(int row, int col) {
+    if (row < 1 || row > rowSize || col < 1 || col > rowSize) {
+      throw new IllegalArgumentException();
+    }
+  }
+
+  private int convertTo1DIndex(int row, int col) {
+    return (row - 1) * rowSize + (col - 1);
+  }
+
+  // test client (optional)
+  public static void main(String[] args) {
+  }
+}
@@ -0,0 +1,231 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Percolation for lattices too large for int indices and the heap. Open
+// sites live in a long-word bitset; the union-find parents and the root
+// rank/flag bytes live in memory-mapped files, so n can go well beyond
+// 46,340 (where n * n overflows an int).
+public class LargePercolation implements Closeable {
+  // bitset words must stay within the largest long[] the JVM allocates
+  private static final long MAX_SITES = (long) (Integer.MAX_VALUE - 8) << 6;
+
+  private static final int RANK_MASK = 0x3F;
+  private static final int TOP = 0x40;
+  private static final int BOTTOM = 0x80;
+
+  private final long[] openBits;
+  // parent + 1 of every site, so the zero-filled file means "own root"
+  private final MappedArray parent;
+  // rank in the low bits, TOP and BOTTOM are only meaningful at roots
+  private final MappedArray rank;
+  private final int rowSize;
+  private final long numberOfSites;
+
+  private long openSites;
+  private boolean percolates;
+
+  // creates n-by-n grid backed by temporary files, all sites blocked
+  public LargePercolation(int n) {
+    this(n, Paths.get(System.getProperty("java.io.tmpdir")));
+  }
+
+  // creates n-by-n grid backed by files in directory, all sites blocked
+  public LargePercolation(int n, Path directory) {
+    if (n <= 0) {
+      throw new IllegalArgumentException(
+          "Number of sites is less than or equal to zero.");
+    }
+
+    rowSize = n;
+    numberOfSites = (long) n * n;
+
+    if (numberOfSites > MAX_SITES) {
+      throw new IllegalArgumentException("grid is too large: " + n);
+    }
+
+    openBits = new long[(int) ((numberOfSites + 63) >>> 6)];
+
+    parent = createArray(directory, "parent", Long.BYTES, null);
+    rank = createArray(directory, "rank", Byte.BYTES, parent);
+
+    openSites = 0;
+    percolates = false;
+  }
+
+  // maps a new array of one element per site, closing (and so deleting)
+  // the array created before it if this one cannot be made
+  private MappedArray createArray(Path directory, String prefix, int width,
+      MappedArray previous) {
+    try {
+      return new MappedArray(Files.createTempFile(directory, prefix, ".bin"),
+          numberOfSites, width);
+    } catch (IOException | RuntimeException e) {
+      if (previous != null) {
+        previous.close();
+      }
+      if (e instanceof IOException) {
+        throw new UncheckedIOException((IOException) e);
+      }
+      throw (RuntimeException) e;
+    }
+  }
+
+  // opens the site (row, col) if it is not open already
+  public void open(int row, int col) {
+    validateIndicies(row, col);
+
+    final long curr = convertTo1DIndex(row, col);
+    if (isOpen(curr)) {
+      return;
+    }
+
+    openBits[(int) (curr >>> 6)] |= 1L << curr;
+    openSites++;
+
+    int flags = 0;
+    if (row == 1) {
+      flags |= TOP;
+    }
+    if (row == rowSize) {
+      flags |= BOTTOM;
+    }
+
+    rank.setByte(curr, (byte) flags);
+    if (flags == (TOP | BOTTOM)) {
+      percolates = true;
+    }
+
+    if (row > 1) {
+      connectOpenNeighbor(curr, curr - rowSize);
+    }
+    if (row < rowSize) {
+      connectOpenNeighbor(curr, curr + rowSize);
+    }
+    if (col > 1) {
+      connectOpenNeighbor(curr, curr - 1);
+    }
+    if (col < rowSize) {
+      connectOpenNeighbor(curr, curr + 1);
+    }
+  }
+
+  private void connectOpenNeighbor(long curr, long neighbor) {
+    if (!isOpen(neighbor)) {
+      return;
+    }
+
+    final long p = find(curr);
+    final long q = find(neighbor);
+    if (p == q) {
+      return;
+    }
+
+    final int rankP = rank.getByte(p) & 0xFF;
+    final int rankQ = rank.getByte(q) & 0xFF;
+    final int flags = (rankP | rankQ) & (TOP | BOTTOM);
+
+    final long root;
+    int rootRank;
+    if ((rankP & RANK_MASK) < (rankQ & RANK_MASK)) {
+      parent.setLong(p, q + 1);
+      root = q;
+      rootRank = rankQ & RANK_MASK;
+    } else {
+      parent.setLong(q, p + 1);
+      root = p;
+      rootRank = rankP & RANK_MASK;
+      if ((rankP & RANK_MASK) == (rankQ & RANK_MASK)) {
+        rootRank++;
+      }
+    }
+
+    rank.setByte(root, (byte) (rootRank | flags));
+    if (flags == (TOP | BOTTOM)) {
+      percolates = true;
+    }
+  }
+
+  // root of the site, halving the path on the way up
+  private long find(long p) {
+    long up = parent.getLong(p);
+    while (up != 0) {
+      final long grandparent = parent.getLong(up - 1);
+      if (grandparent == 0) {
+        return up - 1;
+      }
+      parent.setLong(p, grandparent);
+      p = grandparent - 1;
+      up = parent.getLong(p);
+    }
+    return p;
+  }
+
+  private boolean isOpen(long index) {
+    return (openBits[(int) (index >>> 6)] & (1L << index)) != 0;
+  }
+
+  // is the site (row, col) open?
+  public boolean isOpen(int row, int col) {
+    validateIndicies(row, col);
+    return isOpen(convertTo1DIndex(row, col));
+  }
+
+  // is the site (row, col) full?
+  public boolean isFull(int row, int col) {
+    validateIndicies(row, col);
+
+    final long index = convertTo1DIndex(row, col);
+    if (!isOpen(index)) {
+      return false;
+    }
+
+    return (rank.getByte(find(index)) & TOP) != 0;
+  }
+
+  // returns the number of open sites
+  public long numberOfOpenSites() {
+    return openSites;
+  }
+
+  // does the system percolate?
+  public boolean percolates() {
+    return percolates;
+  }
+
+  // releases the backing files
+  @Override
+  public void close() {
+    parent.close();
+    rank.close();
+  }
+
+  private void validateIndicies(int row, int col) {
+    if (row < 1 || row > rowSize || col < 1 || col > rowSize) {
+      throw new IllegalArgumentException();
+    }
+  }
+
+  private long convertTo1DIndex(int row, int col) {
+    return (long) (row - 1) * rowSize + (col - 1);
+  }
+
+  // opens one column top to bottom on an n-by-n grid
+  public static void main(String[] args) {
+    final int n = Integer.parseInt(args[0]);
+
+    try (LargePercolation percolation = new LargePercolation(n)) {
+      final int col = n / 2 + 1;
+      for (int row = 1; row <= n; row++) {
+        percolation.open(row, col);
+      }
+
+      System.out.println("open sites = " + percolation.numberOfOpenSites());
+      System.out.println("percolates = " + percolation.percolates());
+      System.out.println("bottom full = " + percolation.isFull(n, col));
+    }
+  }
+}
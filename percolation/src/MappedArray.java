@@ -0,0 +1,118 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Fixed-width array of bytes or longs with long indices, kept in a
+// memory-mapped file instead of on the heap. The file is mapped in 1 GiB
+// segments, which is the most a single MappedByteBuffer can address in
+// practice, and starts out zero-filled (and sparse on most file systems).
+public class MappedArray implements Closeable {
+  private static final int SEGMENT_BITS = 30;
+  private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+  private final Path file;
+  private final FileChannel channel;
+  private final MappedByteBuffer[] segments;
+  private final long length;
+  private final int width;
+
+  // maps a new zero-filled file holding length elements of width bytes;
+  // if that fails the file is closed and deleted again
+  public MappedArray(Path file, long length, int width) {
+    if (length < 0 || (width != Byte.BYTES && width != Long.BYTES)) {
+      throw new IllegalArgumentException("invalid parameters");
+    }
+
+    this.file = file;
+    this.length = length;
+    this.width = width;
+
+    final long bytes = length * width;
+    final int count = (int) ((bytes + SEGMENT_MASK) >>> SEGMENT_BITS);
+    segments = new MappedByteBuffer[count];
+
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      deleteQuietly(file, e);
+      throw new UncheckedIOException(e);
+    }
+
+    try {
+      for (int i = 0; i < count; i++) {
+        final long position = (long) i << SEGMENT_BITS;
+        final long size = Math.min(SEGMENT_MASK + 1, bytes - position);
+        segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position,
+            size);
+      }
+    } catch (IOException | RuntimeException e) {
+      try {
+        channel.close();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      deleteQuietly(file, e);
+      if (e instanceof IOException) {
+        throw new UncheckedIOException((IOException) e);
+      }
+      throw (RuntimeException) e;
+    }
+  }
+
+  // deletes file after a failure, recording any trouble on cause
+  private static void deleteQuietly(Path file, Exception cause) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException suppressed) {
+      cause.addSuppressed(suppressed);
+    }
+  }
+
+  // returns the number of elements
+  public long length() {
+    return length;
+  }
+
+  // returns element i of a byte array
+  public byte getByte(long i) {
+    return segments[(int) (i >>> SEGMENT_BITS)].get((int) (i & SEGMENT_MASK));
+  }
+
+  // sets element i of a byte array
+  public void setByte(long i, byte value) {
+    segments[(int) (i >>> SEGMENT_BITS)].put((int) (i & SEGMENT_MASK), value);
+  }
+
+  // returns element i of a long array
+  public long getLong(long i) {
+    final long offset = i << 3;
+    return segments[(int) (offset >>> SEGMENT_BITS)]
+        .getLong((int) (offset & SEGMENT_MASK));
+  }
+
+  // sets element i of a long array
+  public void setLong(long i, long value) {
+    final long offset = i << 3;
+    segments[(int) (offset >>> SEGMENT_BITS)]
+        .putLong((int) (offset & SEGMENT_MASK), value);
+  }
+
+  // closes the channel and deletes the backing file; the mapping itself is
+  // released when the buffers are garbage collected
+  @Override
+  public void close() {
+    try {
+      channel.close();
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
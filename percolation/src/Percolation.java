@@ -1,17 +1,46 @@
 
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.IntFunction;
 
 public class Percolation {
+  // site states written by snapshot()
+  public static final byte BLOCKED = 0;
+  public static final byte OPEN = 1;
+  public static final byte FULL = 2;
+
+  // "PERC", followed by the format version of save()
+  private static final int MAGIC = 0x50455243;
+  private static final int VERSION = 1;
+
+  // root flags for clusters touching the top or bottom row
+  private static final byte TOP = 1;
+  private static final byte BOTTOM = 2;
+
   private final boolean[] sites;
   private final int numberOfSites;
   private final int rowSize;
-  private final WeightedQuickUnionUF unionFind;
-  private final WeightedQuickUnionUF noBottomUF;
+  private final UnionFind unionFind;
+  // TOP/BOTTOM and cluster size, only meaningful at roots
+  private final byte[] flags;
+  private final int[] clusterSize;
 
   private int openSites;
+  private int clusters;
+  private int largestCluster;
+  private int spanningCluster;
 
   // creates n-by-n grid, with all sites initially blocked
   public Percolation(int n) {
+    this(n, RankHalvingUF::new);
+  }
+
+  // creates n-by-n grid on a union-find structure made by unionFinds, with
+  // all sites initially blocked
+  public Percolation(int n, IntFunction<UnionFind> unionFinds) {
     if (n <= 0) {
       throw new IllegalArgumentException(
           "Number of sites is less than or equal to zero.");
@@ -20,25 +49,23 @@ public class Percolation {
     this.rowSize = n;
     numberOfSites = n * n;
 
-    final int actualSize = numberOfSites + 2;
-    final int actualSize2 = numberOfSites + 1;
-
-    sites = new boolean[actualSize];
-
-    for (int i = 0; i < actualSize; i++) {
-      sites[i] = false;
-    }
-
-    unionFind = new WeightedQuickUnionUF(actualSize);
-    noBottomUF = new WeightedQuickUnionUF(actualSize2);
+    // no virtual top and bottom sites: they would merge every cluster that
+    // touches a boundary row, so the boundary is tracked as root flags
+    sites = new boolean[numberOfSites];
+    unionFind = unionFinds.apply(numberOfSites);
+    flags = new byte[numberOfSites];
+    clusterSize = new int[numberOfSites];
     openSites = 0;
+  }
 
-    // connect virtual sites
-    for (int i = 1; i <= n; i++) {
-      unionFind.union(0, i); // top site
-      noBottomUF.union(0, i);
-      unionFind.union(numberOfSites - 1, i + n * (n - 1)); // bottom site
-    }
+  // blocks every site again, reusing the arrays of this grid
+  public void reset() {
+    Arrays.fill(sites, false);
+    unionFind.reset();
+    openSites = 0;
+    clusters = 0;
+    largestCluster = 0;
+    spanningCluster = 0;
   }
 
   // opens the site (row, col) if it is not open already
@@ -51,6 +78,18 @@ public class Percolation {
       sites[curr] = true;
       openSites++;
 
+      // a new cluster of one, which the unions below may fold into others
+      flags[curr] = 0;
+      if (row == 1) {
+        flags[curr] |= TOP;
+      }
+      if (row == rowSize) {
+        flags[curr] |= BOTTOM;
+      }
+      clusterSize[curr] = 1;
+      clusters++;
+      recordCluster(curr);
+
       connectOpenNeighbor(curr, row + 1, col);
       connectOpenNeighbor(curr, row - 1, col);
       connectOpenNeighbor(curr, row, col + 1);
@@ -60,9 +99,92 @@ public class Percolation {
 
   private void connectOpenNeighbor(int curr, int row, int col) {
     if (inBounds(row, col) && isOpen(row, col)) {
-      final int neighbor = convertTo1DIndex(row, col);
-      unionFind.union(curr, neighbor);
-      noBottomUF.union(curr, neighbor);
+      final int rootP = unionFind.find(curr);
+      final int rootQ = unionFind.find(convertTo1DIndex(row, col));
+      if (rootP == rootQ) {
+        return;
+      }
+
+      unionFind.union(rootP, rootQ);
+      final int root = unionFind.find(rootP);
+
+      flags[root] = (byte) (flags[rootP] | flags[rootQ]);
+      clusterSize[root] = clusterSize[rootP] + clusterSize[rootQ];
+      clusters--;
+      recordCluster(root);
+    }
+  }
+
+  private void recordCluster(int root) {
+    if (clusterSize[root] > largestCluster) {
+      largestCluster = clusterSize[root];
+    }
+    if (flags[root] == (TOP | BOTTOM)
+        && clusterSize[root] > spanningCluster) {
+      spanningCluster = clusterSize[root];
+    }
+  }
+
+  // writes the grid, its union-find arrays and counters to file
+  public void save(Path file) {
+    final byte[] type =
+        unionFind.getClass().getName().getBytes(StandardCharsets.UTF_8);
+
+    try (StateFile out = StateFile.create(file)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(rowSize);
+      out.writeInt(type.length);
+      out.writeBytes(type);
+      out.writeInt(openSites);
+      out.writeInt(clusters);
+      out.writeInt(largestCluster);
+      out.writeInt(spanningCluster);
+      out.writeBits(sites);
+      out.writeBytes(flags);
+      out.writeInts(clusterSize);
+      unionFind.writeTo(out);
+      out.commit();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // reads a grid written by save() on the default union-find
+  public static Percolation load(Path file) {
+    return load(file, RankHalvingUF::new);
+  }
+
+  // reads a grid written by save(); unionFinds must make the same type of
+  // union-find that the saved grid used
+  public static Percolation load(Path file,
+      IntFunction<UnionFind> unionFinds) {
+    try (StateFile in = StateFile.open(file)) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IllegalArgumentException("not a percolation checkpoint");
+      }
+
+      final Percolation percolation = new Percolation(in.readInt(),
+          unionFinds);
+      final byte[] type = new byte[in.readInt()];
+      in.readBytes(type);
+      if (!percolation.unionFind.getClass().getName()
+          .equals(new String(type, StandardCharsets.UTF_8))) {
+        throw new IllegalArgumentException("checkpoint uses a different "
+            + "union-find: " + new String(type, StandardCharsets.UTF_8));
+      }
+
+      percolation.openSites = in.readInt();
+      percolation.clusters = in.readInt();
+      percolation.largestCluster = in.readInt();
+      percolation.spanningCluster = in.readInt();
+      in.readBits(percolation.sites);
+      in.readBytes(percolation.flags);
+      in.readInts(percolation.clusterSize);
+      percolation.unionFind.readFrom(in);
+      return percolation;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
   }
 
@@ -78,28 +200,69 @@ public class Percolation {
 
     if (isOpen(row, col)) {
       final int index = convertTo1DIndex(row, col);
-      return noBottomUF.find(0) == noBottomUF.find(index);
+      return (flags[unionFind.find(index)] & TOP) != 0;
     }
 
     return false;
   }
 
+  // returns the state of every site in row-major order
+  public byte[] snapshot() {
+    return snapshot(new byte[numberOfSites]);
+  }
+
+  // writes the state of every site into raster in row-major order, in one
+  // pass: an open site whose left or upper neighbour is open is in that
+  // neighbour's cluster, so find() only runs where a cluster is first met
+  public byte[] snapshot(byte[] raster) {
+    if (raster == null || raster.length != numberOfSites) {
+      throw new IllegalArgumentException("raster must hold n * n sites");
+    }
+
+    for (int row = 1; row <= rowSize; row++) {
+      for (int col = 1; col <= rowSize; col++) {
+        final int index = convertTo1DIndex(row, col);
+
+        if (!sites[index]) {
+          raster[index] = BLOCKED;
+        } else if (col > 1 && sites[index - 1]) {
+          raster[index] = raster[index - 1];
+        } else if (row > 1 && sites[index - rowSize]) {
+          raster[index] = raster[index - rowSize];
+        } else {
+          final boolean full = (flags[unionFind.find(index)] & TOP) != 0;
+          raster[index] = full ? FULL : OPEN;
+        }
+      }
+    }
+
+    return raster;
+  }
+
   // returns the number of open sites
   public int numberOfOpenSites() {
     return openSites;
   }
 
+  // returns the number of clusters of open sites
+  public int numberOfClusters() {
+    return clusters;
+  }
+
+  // returns the number of sites in the largest cluster
+  public int largestClusterSize() {
+    return largestCluster;
+  }
+
+  // returns the number of sites in the largest cluster that touches both
+  // the top and the bottom row, or 0 if the system does not percolate
+  public int spanningClusterSize() {
+    return spanningCluster;
+  }
+
   // does the system percolate?
   public boolean percolates() {
-    
-    if (rowSize == 1)
-    {
-      return sites[1];
-    }
-    
-    final int top = unionFind.find(0);
-    final int bottom = unionFind.find(numberOfSites - 1);
-    return top == bottom;
+    return spanningCluster > 0;
   }
 
   private boolean inBounds(int row, int col) {
@@ -113,7 +276,7 @@ public class Percolation {
   }
 
   private int convertTo1DIndex(int row, int col) {
-    return (row - 1) * rowSize + col;
+    return (row - 1) * rowSize + (col - 1);
   }
 
   // test client (optional)
@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Replays a recorded sequence of site openings. An event log is a binary
+// file of little-endian int pairs (row, col); it is memory-mapped and read
+// through bulk IntBuffer gets into one reused array, so there is no
+// per-event parsing, boxing or stream call.
+public class PercolationReplay {
+  // 1 GiB mapping windows, a whole number of 8-byte events
+  private static final long WINDOW_BYTES = 1L << 30;
+  // ints copied per bulk get, an even number so events never straddle
+  private static final int CHUNK_INTS = 8192;
+
+  private PercolationReplay() {
+  }
+
+  // opens the events of the log on percolation in order; returns the index
+  // of the event after which the system first percolates, or -1 if it
+  // never does; percolation must not percolate yet (reset() it first)
+  public static long percolationIndex(Percolation percolation, Path events) {
+    if (percolation == null || events == null) {
+      throw new IllegalArgumentException("invalid parameters");
+    }
+    if (percolation.percolates()) {
+      throw new IllegalArgumentException("system already percolates");
+    }
+
+    final int[] chunk = new int[CHUNK_INTS];
+    long index = 0;
+
+    try (FileChannel channel = FileChannel.open(events,
+        StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size % (2 * Integer.BYTES) != 0) {
+        throw new IllegalArgumentException(
+            "event log is not a whole number of (row, col) pairs");
+      }
+
+      for (long position = 0; position < size; position += WINDOW_BYTES) {
+        final IntBuffer window = channel
+            .map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(WINDOW_BYTES, size - position))
+            .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+        while (window.hasRemaining()) {
+          final int count = Math.min(CHUNK_INTS, window.remaining());
+          window.get(chunk, 0, count);
+
+          for (int i = 0; i < count; i += 2, index++) {
+            percolation.open(chunk[i], chunk[i + 1]);
+            if (percolation.percolates()) {
+              return index;
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return -1;
+  }
+
+  // prints the percolation event index of each log on an n-by-n grid
+  public static void main(String[] args) {
+    final int n = Integer.parseInt(args[0]);
+    final Percolation percolation = new Percolation(n);
+
+    for (int i = 1; i < args.length; i++) {
+      percolation.reset();
+      final long index = percolationIndex(percolation, Paths.get(args[i]));
+
+      if (index < 0) {
+        System.out.println(args[i] + ": does not percolate after "
+            + percolation.numberOfOpenSites() + " open sites");
+      } else {
+        System.out.println(args[i] + ": percolates at event " + index
+            + " with " + percolation.numberOfOpenSites() + " open sites");
+      }
+    }
+  }
+}
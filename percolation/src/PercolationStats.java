@@ -1,7 +1,32 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
 import edu.princeton.cs.algs4.StdRandom;
 import edu.princeton.cs.algs4.StdStats;
 
 public class PercolationStats {
+  // tasks per available processor, so uneven trial lengths still balance
+  private static final int BLOCKS_PER_CPU = 4;
+  // smallest batch of an adaptive run, also enough for a first stddev
+  private static final int MIN_BATCH = 32;
+  // "PSTA", followed by the format version of checkpoint files
+  private static final int MAGIC = 0x50535441;
+  private static final int VERSION = 2;
+  // magic, version, n, trials and seed, before the appended thresholds
+  private static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES;
+  // least time between two checkpoint saves
+  private static final long CHECKPOINT_NANOS = 1_000_000_000L;
+
   private int trials;
   private double[] thresholds;
   private double mean;
@@ -17,9 +42,10 @@ public class PercolationStats {
     thresholds = new double[trials];
     final double totalSites = n * n;
 
+    final Percolation percolation = new Percolation(n);
     for (int i = 0; i < trials; i++) {
       boolean percolates = false;
-      final Percolation percolation = new Percolation(n);
+      percolation.reset();
       while (!percolates) {
         int row = StdRandom.uniform(1, n + 1);
         int col = StdRandom.uniform(1, n + 1);
@@ -38,6 +64,304 @@ public class PercolationStats {
     stddev = StdStats.stddev(thresholds);
   }
 
+  // perform independent trials in parallel on the common fork-join pool
+  public PercolationStats(int n, int trials, long seed) {
+    this(n, trials, seed, ForkJoinPool.commonPool());
+  }
+
+  // perform independent trials in parallel on the given executor; trial i
+  // always draws from the i-th stream split off the seed, so the thresholds
+  // are the same whatever the number of threads
+  public PercolationStats(int n, int trials, long seed,
+      ExecutorService executor) {
+    this(n, trials, RandomSource.splittable(seed), executor);
+  }
+
+  // perform independent trials in parallel on the given executor, trial i
+  // drawing from the i-th source split off random
+  public PercolationStats(int n, int trials, RandomSource random,
+      ExecutorService executor) {
+    if (n <= 0 || trials <= 0 || random == null || executor == null) {
+      throw new IllegalArgumentException("invalid parameters");
+    }
+
+    this.trials = trials;
+    thresholds = new double[trials];
+
+    runTrials(n, splitStreams(random, trials), executor, thresholds);
+
+    mean = StdStats.mean(thresholds);
+    stddev = StdStats.stddev(thresholds);
+  }
+
+  // perform independent trials in parallel without storing them: every
+  // threshold is folded into sink as soon as its trial ends, so sink can be
+  // read from another thread for interim estimates while this runs; sink
+  // may already hold other runs, but mean, stddev and trials of this
+  // object only cover this one
+  public PercolationStats(int n, int trials, long seed,
+      ExecutorService executor, ThresholdStats sink) {
+    if (n <= 0 || trials <= 0 || executor == null || sink == null) {
+      throw new IllegalArgumentException("invalid parameters");
+    }
+
+    final ThresholdStats run = new ThresholdStats();
+    runTrials(n, splitStreams(RandomSource.splittable(seed), trials),
+        executor, null, sink, run);
+
+    this.trials = trials;
+    mean = run.mean();
+    stddev = run.stddev();
+  }
+
+  // perform independent trials in parallel like the seeded constructor,
+  // appending the thresholds completed since the last save to checkpoint
+  // about once a second and at the end; if checkpoint holds an unfinished
+  // run with the same n, trials and seed, the run resumes after its last
+  // saved trial with the same results
+  public PercolationStats(int n, int trials, long seed,
+      ExecutorService executor, Path checkpoint) {
+    if (n <= 0 || trials <= 0 || executor == null || checkpoint == null) {
+      throw new IllegalArgumentException("invalid parameters");
+    }
+
+    this.trials = trials;
+    thresholds = new double[trials];
+
+    final RandomSource[] streams =
+        splitStreams(RandomSource.splittable(seed), trials);
+    final int cpus = Runtime.getRuntime().availableProcessors();
+    final int batch = Math.max(MIN_BATCH, cpus * BLOCKS_PER_CPU);
+    int saved;
+    if (Files.exists(checkpoint)) {
+      saved = readCheckpoint(checkpoint, n, trials, seed, thresholds);
+    } else {
+      writeCheckpointHeader(checkpoint, n, trials, seed);
+      saved = 0;
+    }
+
+    int done = saved;
+    long lastSave = System.nanoTime();
+    while (done < trials) {
+      final int size = Math.min(batch, trials - done);
+      final double[] results = new double[size];
+      runTrials(n, Arrays.copyOfRange(streams, done, done + size), executor,
+          results);
+      System.arraycopy(results, 0, thresholds, done, size);
+      done += size;
+
+      if (done == trials || System.nanoTime() - lastSave >= CHECKPOINT_NANOS) {
+        appendCheckpoint(checkpoint, thresholds, saved, done);
+        saved = done;
+        lastSave = System.nanoTime();
+      }
+    }
+
+    mean = StdStats.mean(thresholds);
+    stddev = StdStats.stddev(thresholds);
+  }
+
+  // starts a checkpoint holding no thresholds yet
+  private static void writeCheckpointHeader(Path file, int n, int trials,
+      long seed) {
+    try (StateFile out = StateFile.create(file)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(n);
+      out.writeInt(trials);
+      out.writeLong(seed);
+      out.commit();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // appends thresholds saved up to done to a checkpoint holding the first
+  // saved, dropping any partial threshold left by an interrupted append
+  private static void appendCheckpoint(Path file, double[] thresholds,
+      int saved, int done) {
+    final long length = HEADER_BYTES + (long) saved * Double.BYTES;
+    try (StateFile out = StateFile.append(file, length)) {
+      out.writeDoubles(thresholds, saved, done - saved);
+      out.commit();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // reads the saved thresholds into thresholds, returns how many there
+  // are; a partial threshold at the end of the file is ignored
+  private static int readCheckpoint(Path file, int n, int trials, long seed,
+      double[] thresholds) {
+    try (StateFile in = StateFile.open(file)) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IllegalArgumentException("not a trial checkpoint");
+      }
+      if (in.readInt() != n || in.readInt() != trials
+          || in.readLong() != seed) {
+        throw new IllegalArgumentException(
+            "checkpoint belongs to a run with different parameters");
+      }
+
+      final long saved = (Files.size(file) - HEADER_BYTES) / Double.BYTES;
+      if (saved > trials) {
+        throw new IllegalArgumentException("corrupt trial checkpoint");
+      }
+      in.readDoubles(thresholds, 0, (int) saved);
+      return (int) saved;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // perform batches of trials until the 95% confidence interval is narrow
+  // enough or maxTrials have run; the target is a half-width, or a fraction
+  // of the mean when relative is set
+  private PercolationStats(int n, double target, boolean relative,
+      int maxTrials, long seed, ExecutorService executor) {
+    if (n <= 0 || !(target > 0.0) || maxTrials < 2 || executor == null) {
+      throw new IllegalArgumentException("invalid parameters");
+    }
+
+    final RandomSource root = RandomSource.splittable(seed);
+    final ThresholdStats sink = new ThresholdStats();
+    final int cpus = Runtime.getRuntime().availableProcessors();
+    int batch = Math.max(MIN_BATCH, cpus * BLOCKS_PER_CPU);
+    int done = 0;
+
+    while (done < maxTrials) {
+      final int size = Math.min(batch, maxTrials - done);
+      runTrials(n, splitStreams(root, size), executor, null, sink);
+      done += size;
+
+      final double stddev = sink.stddev();
+      final double goal = relative ? target * sink.mean() : target;
+      final double halfWidth = 1.96 * stddev / Math.sqrt(done);
+      if (halfWidth <= goal) {
+        break;
+      }
+
+      // plan the next batch from the trials the current stddev calls for
+      final double needed = Math.pow(1.96 * stddev / goal, 2);
+      batch = (int) Math.min(Integer.MAX_VALUE,
+          Math.max(MIN_BATCH, Math.ceil(needed) - done));
+    }
+
+    this.trials = done;
+    mean = sink.mean();
+    stddev = sink.stddev();
+  }
+
+  // perform trials on the common pool until the 95% confidence interval is
+  // at most mean +- halfWidth, running no more than maxTrials
+  public static PercolationStats untilHalfWidth(int n, double halfWidth,
+      int maxTrials, long seed) {
+    return untilHalfWidth(n, halfWidth, maxTrials, seed,
+        ForkJoinPool.commonPool());
+  }
+
+  // perform trials on the executor until the 95% confidence interval is at
+  // most mean +- halfWidth, running no more than maxTrials
+  public static PercolationStats untilHalfWidth(int n, double halfWidth,
+      int maxTrials, long seed, ExecutorService executor) {
+    return new PercolationStats(n, halfWidth, false, maxTrials, seed,
+        executor);
+  }
+
+  // perform trials on the common pool until the 95% confidence interval is
+  // at most mean +- precision * mean, running no more than maxTrials
+  public static PercolationStats untilRelativeHalfWidth(int n,
+      double precision, int maxTrials, long seed) {
+    return untilRelativeHalfWidth(n, precision, maxTrials, seed,
+        ForkJoinPool.commonPool());
+  }
+
+  // perform trials on the executor until the 95% confidence interval is at
+  // most mean +- precision * mean, running no more than maxTrials
+  public static PercolationStats untilRelativeHalfWidth(int n,
+      double precision, int maxTrials, long seed, ExecutorService executor) {
+    return new PercolationStats(n, precision, true, maxTrials, seed,
+        executor);
+  }
+
+  private static RandomSource[] splitStreams(RandomSource root, int count) {
+    final RandomSource[] streams = new RandomSource[count];
+    for (int i = 0; i < count; i++) {
+      streams[i] = root.split();
+    }
+    return streams;
+  }
+
+  // runs one trial per stream in blocks on the executor, storing threshold
+  // i in results[i] (unless results is null) and folding it into each sink
+  private static void runTrials(int n, RandomSource[] streams,
+      ExecutorService executor, double[] results, ThresholdStats... sinks) {
+    final int trials = streams.length;
+    final int cpus = Runtime.getRuntime().availableProcessors();
+    final int blocks = Math.min(trials, cpus * BLOCKS_PER_CPU);
+    final List<Callable<Void>> tasks = new ArrayList<>(blocks);
+
+    for (int b = 0; b < blocks; b++) {
+      final int lo = (int) ((long) trials * b / blocks);
+      final int hi = (int) ((long) trials * (b + 1) / blocks);
+      tasks.add(() -> {
+        final FlaggedPercolation percolation = new FlaggedPercolation(n);
+        for (int i = lo; i < hi; i++) {
+          final double threshold = runTrial(percolation, n, streams[i]);
+          if (results != null) {
+            results[i] = threshold;
+          }
+          for (ThresholdStats sink : sinks) {
+            sink.add(threshold);
+          }
+        }
+        return null;
+      });
+    }
+
+    runAll(executor, tasks);
+  }
+
+  // opens random sites on a cleared grid until it percolates, returns the
+  // open fraction
+  private static double runTrial(FlaggedPercolation percolation, int n,
+      RandomSource random) {
+    percolation.reset();
+    boolean percolates = false;
+
+    while (!percolates) {
+      int row = random.nextInt(1, n + 1);
+      int col = random.nextInt(1, n + 1);
+
+      if (!percolation.isOpen(row, col)) {
+        percolation.open(row, col);
+        percolates = percolation.percolates();
+      }
+    }
+
+    return percolation.numberOfOpenSites() / ((double) n * n);
+  }
+
+  // runs the tasks on the executor and rethrows the first failure
+  static void runAll(ExecutorService executor,
+      List<Callable<Void>> tasks) {
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while running trials", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("trial failed", e.getCause());
+    }
+  }
+
+  // number of trials performed
+  public int trials() {
+    return trials;
+  }
+
   // sample mean of percolation threshold
   public double mean() {
     return mean;
@@ -67,7 +391,9 @@ public class PercolationStats {
     final int n = Integer.parseInt(args[0]);
     final int T = Integer.parseInt(args[1]);
 
-    final PercolationStats stats = new PercolationStats(n, T);
+    final PercolationStats stats = args.length > 2
+        ? new PercolationStats(n, T, Long.parseLong(args[2]))
+        : new PercolationStats(n, T);
 
     final double mean = stats.mean();
     final double stddev = stats.stddev();
@@ -0,0 +1,187 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import edu.princeton.cs.algs4.StdOut;
+
+// Newman-Ziff sweep: every trial opens all n^2 sites in one shuffled order
+// and records, after each open, whether the grid spans and how large its
+// largest cluster is. Averaging over trials gives the spanning probability
+// and largest cluster size at every occupation k = 0..n^2.
+public class PercolationSweep {
+  private final int numberOfSites;
+  private final int trials;
+  private final long[] spanning;
+  private final long[] largestCluster;
+
+  // sweep independent trials on an n-by-n grid on the common fork-join pool
+  public PercolationSweep(int n, int trials, long seed) {
+    this(n, trials, seed, ForkJoinPool.commonPool());
+  }
+
+  // sweep independent trials on an n-by-n grid on the given executor
+  public PercolationSweep(int n, int trials, long seed,
+      ExecutorService executor) {
+    if (n <= 0 || trials <= 0 || executor == null) {
+      throw new IllegalArgumentException("invalid parameters");
+    }
+
+    this.trials = trials;
+    numberOfSites = n * n;
+
+    final RandomSource root = RandomSource.splittable(seed);
+    final RandomSource[] streams = new RandomSource[trials];
+    for (int i = 0; i < trials; i++) {
+      streams[i] = root.split();
+    }
+
+    final int cpus = Runtime.getRuntime().availableProcessors();
+    final int blocks = Math.min(trials, cpus);
+    final long[][] blockSpanning = new long[blocks][];
+    final long[][] blockLargest = new long[blocks][];
+    final List<Callable<Void>> tasks = new ArrayList<>(blocks);
+
+    for (int b = 0; b < blocks; b++) {
+      final int block = b;
+      final int lo = (int) ((long) trials * b / blocks);
+      final int hi = (int) ((long) trials * (b + 1) / blocks);
+      tasks.add(() -> {
+        final long[] span = new long[numberOfSites + 1];
+        final long[] largest = new long[numberOfSites + 1];
+        final int[] order = new int[numberOfSites];
+        final FlaggedPercolation percolation = new FlaggedPercolation(n);
+        for (int i = 0; i < numberOfSites; i++) {
+          order[i] = i;
+        }
+
+        for (int i = lo; i < hi; i++) {
+          sweep(percolation, n, streams[i], order, span, largest);
+        }
+
+        blockSpanning[block] = span;
+        blockLargest[block] = largest;
+        return null;
+      });
+    }
+
+    PercolationStats.runAll(executor, tasks);
+
+    spanning = blockSpanning[0];
+    largestCluster = blockLargest[0];
+    for (int b = 1; b < blocks; b++) {
+      for (int k = 0; k <= numberOfSites; k++) {
+        spanning[k] += blockSpanning[b][k];
+        largestCluster[k] += blockLargest[b][k];
+      }
+    }
+  }
+
+  // opens every site in a fresh random order, adding each step to the sums
+  private static void sweep(FlaggedPercolation percolation, int n,
+      RandomSource random, int[] order, long[] span, long[] largest) {
+    for (int i = order.length - 1; i > 0; i--) {
+      final int j = random.nextInt(i + 1);
+      final int swap = order[i];
+      order[i] = order[j];
+      order[j] = swap;
+    }
+
+    percolation.reset();
+    for (int k = 1; k <= order.length; k++) {
+      percolation.open(order[k - 1] / n + 1, order[k - 1] % n + 1);
+
+      if (percolation.percolates()) {
+        span[k]++;
+      }
+      largest[k] += percolation.largestClusterSize();
+    }
+  }
+
+  // returns the number of sites n^2 of the grid
+  public int numberOfSites() {
+    return numberOfSites;
+  }
+
+  // fraction of trials that percolate once openSites sites are open
+  public double spanningProbability(int openSites) {
+    validateOpenSites(openSites);
+    return spanning[openSites] / (double) trials;
+  }
+
+  // mean size of the largest cluster once openSites sites are open
+  public double largestClusterSize(int openSites) {
+    validateOpenSites(openSites);
+    return largestCluster[openSites] / (double) trials;
+  }
+
+  // spanning probability at site open probability p, by weighting every
+  // occupation k with its binomial probability (the canonical ensemble)
+  public double spanningProbabilityAt(double p) {
+    return convolve(spanning, p) / trials;
+  }
+
+  // mean largest cluster size at site open probability p
+  public double largestClusterSizeAt(double p) {
+    return convolve(largestCluster, p) / trials;
+  }
+
+  // sum of B(numberOfSites, k, p) * values[k], starting at the mode of the
+  // binomial and walking outwards so the weights never underflow early
+  private double convolve(long[] values, double p) {
+    if (!(p >= 0.0 && p <= 1.0)) {
+      throw new IllegalArgumentException("p must be in [0, 1]");
+    }
+    if (p == 0.0) {
+      return values[0];
+    }
+    if (p == 1.0) {
+      return values[numberOfSites];
+    }
+
+    final int mode = (int) Math.floor((numberOfSites + 1) * p);
+    final int top = Math.min(mode, numberOfSites);
+    final double ratio = p / (1.0 - p);
+
+    double weight = 1.0;
+    double total = 1.0;
+    double sum = values[top];
+    for (int k = top + 1; k <= numberOfSites && weight > 0.0; k++) {
+      weight *= ratio * (numberOfSites - k + 1) / k;
+      total += weight;
+      sum += weight * values[k];
+    }
+
+    weight = 1.0;
+    for (int k = top - 1; k >= 0 && weight > 0.0; k--) {
+      weight *= (k + 1) / (ratio * (numberOfSites - k));
+      total += weight;
+      sum += weight * values[k];
+    }
+
+    return sum / total;
+  }
+
+  private void validateOpenSites(int openSites) {
+    if (openSites < 0 || openSites > numberOfSites) {
+      throw new IllegalArgumentException();
+    }
+  }
+
+  // prints the spanning curve and largest cluster fraction for p in steps
+  public static void main(String[] args) {
+    final int n = Integer.parseInt(args[0]);
+    final int T = Integer.parseInt(args[1]);
+    final long seed = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+
+    final PercolationSweep sweep = new PercolationSweep(n, T, seed);
+    final double sites = sweep.numberOfSites();
+
+    for (int i = 0; i <= 20; i++) {
+      final double p = i / 20.0;
+      StdOut.printf("p = %.2f  P(span) = %.4f  largest = %.4f%n", p,
+          sweep.spanningProbabilityAt(p), sweep.largestClusterSizeAt(p) / sites);
+    }
+  }
+}
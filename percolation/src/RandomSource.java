@@ -0,0 +1,171 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+// A stream of random numbers that belongs to one thread at a time. Unlike
+// StdRandom there is no shared state: seeded sources repeat the same draws
+// run to run, and split() hands out an independent source for another
+// thread or another trial.
+public interface RandomSource {
+  // uniform int in [0, bound)
+  int nextInt(int bound);
+
+  // uniform int in [origin, bound)
+  default int nextInt(int origin, int bound) {
+    if (origin >= bound) {
+      throw new IllegalArgumentException("origin must be less than bound");
+    }
+    return origin + nextInt(bound - origin);
+  }
+
+  // uniform long over all 2^64 values
+  long nextLong();
+
+  // uniform double in [0, 1)
+  default double nextDouble() {
+    return (nextLong() >>> 11) * 0x1.0p-53;
+  }
+
+  // a new source whose draws are independent of this one's
+  RandomSource split();
+
+  // seeded source backed by java.util.SplittableRandom
+  static RandomSource splittable(long seed) {
+    return new Splittable(new SplittableRandom(seed));
+  }
+
+  // seeded xoshiro256** source
+  static RandomSource xoshiro(long seed) {
+    return new Xoshiro(seed);
+  }
+
+  // unseeded source that draws from the calling thread's ThreadLocalRandom,
+  // so one instance may be shared by threads without contention
+  static RandomSource threadLocal() {
+    return PerThread.INSTANCE;
+  }
+
+  final class Splittable implements RandomSource {
+    private final SplittableRandom random;
+
+    private Splittable(SplittableRandom random) {
+      this.random = random;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+      return random.nextInt(bound);
+    }
+
+    @Override
+    public int nextInt(int origin, int bound) {
+      return random.nextInt(origin, bound);
+    }
+
+    @Override
+    public long nextLong() {
+      return random.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+      return random.nextDouble();
+    }
+
+    @Override
+    public RandomSource split() {
+      return new Splittable(random.split());
+    }
+  }
+
+  // xoshiro256** by Blackman and Vigna, its 256-bit state filled from the
+  // seed with SplitMix64 so that nearby seeds give unrelated streams
+  final class Xoshiro implements RandomSource {
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    private Xoshiro(long seed) {
+      long x = seed;
+      s0 = mix(x += 0x9E3779B97F4A7C15L);
+      s1 = mix(x += 0x9E3779B97F4A7C15L);
+      s2 = mix(x += 0x9E3779B97F4A7C15L);
+      s3 = mix(x + 0x9E3779B97F4A7C15L);
+    }
+
+    private static long mix(long z) {
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+    }
+
+    @Override
+    public long nextLong() {
+      final long result = Long.rotateLeft(s1 * 5, 7) * 9;
+      final long t = s1 << 17;
+
+      s2 ^= s0;
+      s3 ^= s1;
+      s1 ^= s2;
+      s0 ^= s3;
+      s2 ^= t;
+      s3 = Long.rotateLeft(s3, 45);
+
+      return result;
+    }
+
+    // Lemire's multiply-shift, redrawing only in the rare biased band
+    @Override
+    public int nextInt(int bound) {
+      if (bound <= 0) {
+        throw new IllegalArgumentException("bound must be positive");
+      }
+
+      long m = (nextLong() >>> 32) * bound;
+      if ((m & 0xFFFFFFFFL) < bound) {
+        final long threshold = (1L << 32) % bound;
+        while ((m & 0xFFFFFFFFL) < threshold) {
+          m = (nextLong() >>> 32) * bound;
+        }
+      }
+      return (int) (m >>> 32);
+    }
+
+    @Override
+    public RandomSource split() {
+      return new Xoshiro(nextLong());
+    }
+  }
+
+  final class PerThread implements RandomSource {
+    private static final PerThread INSTANCE = new PerThread();
+
+    private PerThread() {
+    }
+
+    @Override
+    public int nextInt(int bound) {
+      return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    @Override
+    public int nextInt(int origin, int bound) {
+      return ThreadLocalRandom.current().nextInt(origin, bound);
+    }
+
+    @Override
+    public long nextLong() {
+      return ThreadLocalRandom.current().nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+      return ThreadLocalRandom.current().nextDouble();
+    }
+
+    @Override
+    public RandomSource split() {
+      return new Xoshiro(nextLong());
+    }
+  }
+}
@@ -0,0 +1,24 @@
+// Union by rank with full path compression: a second pass links every node
+// on the path straight to the root.
+public class RankCompressionUF extends RankUF {
+  // initializes n elements, each in its own component
+  public RankCompressionUF(int n) {
+    super(n);
+  }
+
+  @Override
+  public int find(int p) {
+    validate(p);
+    int root = p;
+    while (root != parent[root]) {
+      root = parent[root];
+    }
+
+    while (p != root) {
+      final int next = parent[p];
+      parent[p] = root;
+      p = next;
+    }
+    return root;
+  }
+}
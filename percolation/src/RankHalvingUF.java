@@ -0,0 +1,18 @@
+// Union by rank with path halving: every other node on the path is linked
+// to its grandparent in the same single pass.
+public class RankHalvingUF extends RankUF {
+  // initializes n elements, each in its own component
+  public RankHalvingUF(int n) {
+    super(n);
+  }
+
+  @Override
+  public int find(int p) {
+    validate(p);
+    while (p != parent[p]) {
+      parent[p] = parent[parent[p]];
+      p = parent[p];
+    }
+    return p;
+  }
+}
@@ -0,0 +1,19 @@
+// Union by rank with path splitting: every node on the path is linked to
+// its grandparent in a single pass.
+public class RankSplittingUF extends RankUF {
+  // initializes n elements, each in its own component
+  public RankSplittingUF(int n) {
+    super(n);
+  }
+
+  @Override
+  public int find(int p) {
+    validate(p);
+    while (p != parent[p]) {
+      final int next = parent[p];
+      parent[p] = parent[next];
+      p = next;
+    }
+    return p;
+  }
+}
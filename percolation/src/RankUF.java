@@ -0,0 +1,64 @@
+import java.io.IOException;
+
+// Union by rank over int arrays; subclasses choose how find() shortens the
+// paths it walks.
+public abstract class RankUF implements UnionFind {
+  protected final int[] parent;
+  private final byte[] rank;
+
+  // initializes n elements, each in its own component
+  protected RankUF(int n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("n is negative");
+    }
+
+    parent = new int[n];
+    rank = new byte[n];
+    reset();
+  }
+
+  @Override
+  public void reset() {
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+      rank[i] = 0;
+    }
+  }
+
+  @Override
+  public void union(int p, int q) {
+    final int rootP = find(p);
+    final int rootQ = find(q);
+    if (rootP == rootQ) {
+      return;
+    }
+
+    if (rank[rootP] < rank[rootQ]) {
+      parent[rootP] = rootQ;
+    } else if (rank[rootP] > rank[rootQ]) {
+      parent[rootQ] = rootP;
+    } else {
+      parent[rootQ] = rootP;
+      rank[rootP]++;
+    }
+  }
+
+  @Override
+  public void writeTo(StateFile file) throws IOException {
+    file.writeInts(parent);
+    file.writeBytes(rank);
+  }
+
+  @Override
+  public void readFrom(StateFile file) throws IOException {
+    file.readInts(parent);
+    file.readBytes(rank);
+  }
+
+  protected void validate(int p) {
+    if (p < 0 || p >= parent.length) {
+      throw new IllegalArgumentException(
+          "index " + p + " is not between 0 and " + (parent.length - 1));
+    }
+  }
+}
@@ -0,0 +1,218 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+// Percolation whose opens can be undone. The union-find links by size and
+// never compresses paths, so each union changes exactly one parent and is
+// undone by restoring it from a log; find() stays O(log n) either way.
+public class ReversiblePercolation {
+  private static final byte OPEN = 1;
+  private static final byte TOP = 2;
+  private static final byte BOTTOM = 4;
+
+  // OPEN is kept per site, TOP and BOTTOM are only meaningful at roots
+  private final byte[] status;
+  private final int[] parent;
+  private final int[] size;
+  private final int rowSize;
+
+  // per union: the linked child root and the previous status of its new
+  // root; per open after its unions: the site and (unions << 1 | percolated)
+  private int[] log;
+  private int logSize;
+
+  private int openSites;
+  private boolean percolates;
+
+  // creates n-by-n grid, with all sites initially blocked
+  public ReversiblePercolation(int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException(
+          "Number of sites is less than or equal to zero.");
+    }
+
+    rowSize = n;
+    final int numberOfSites = n * n;
+
+    status = new byte[numberOfSites];
+    parent = new int[numberOfSites];
+    size = new int[numberOfSites];
+    for (int i = 0; i < numberOfSites; i++) {
+      parent[i] = i;
+      size[i] = 1;
+    }
+
+    log = new int[16];
+    logSize = 0;
+    openSites = 0;
+    percolates = false;
+  }
+
+  // opens the site (row, col) if it is not open already
+  public void open(int row, int col) {
+    validateIndicies(row, col);
+
+    final int curr = convertTo1DIndex(row, col);
+    if ((status[curr] & OPEN) != 0) {
+      return;
+    }
+
+    final boolean percolated = percolates;
+    byte flags = OPEN;
+    if (row == 1) {
+      flags |= TOP;
+    }
+    if (row == rowSize) {
+      flags |= BOTTOM;
+    }
+
+    status[curr] = flags;
+    openSites++;
+    if (flags == (OPEN | TOP | BOTTOM)) {
+      percolates = true;
+    }
+
+    int unions = 0;
+    if (row > 1 && connectOpenNeighbor(curr, curr - rowSize)) {
+      unions++;
+    }
+    if (row < rowSize && connectOpenNeighbor(curr, curr + rowSize)) {
+      unions++;
+    }
+    if (col > 1 && connectOpenNeighbor(curr, curr - 1)) {
+      unions++;
+    }
+    if (col < rowSize && connectOpenNeighbor(curr, curr + 1)) {
+      unions++;
+    }
+
+    push(curr, (unions << 1) | (percolated ? 1 : 0));
+  }
+
+  // links the two clusters if the neighbour is open, logging the change;
+  // returns whether a union happened
+  private boolean connectOpenNeighbor(int curr, int neighbor) {
+    if ((status[neighbor] & OPEN) == 0) {
+      return false;
+    }
+
+    int child = find(curr);
+    int root = find(neighbor);
+    if (child == root) {
+      return false;
+    }
+
+    if (size[child] > size[root]) {
+      final int swap = child;
+      child = root;
+      root = swap;
+    }
+
+    push(child, status[root]);
+    parent[child] = root;
+    size[root] += size[child];
+    status[root] |= status[child];
+
+    if ((status[root] & (TOP | BOTTOM)) == (TOP | BOTTOM)) {
+      percolates = true;
+    }
+    return true;
+  }
+
+  // blocks the most recently opened site again, undoing its unions
+  public void close() {
+    if (openSites == 0) {
+      throw new NoSuchElementException();
+    }
+
+    final int header = log[--logSize];
+    final int site = log[--logSize];
+
+    for (int unions = header >>> 1; unions > 0; unions--) {
+      final byte rootStatus = (byte) log[--logSize];
+      final int child = log[--logSize];
+      final int root = parent[child];
+
+      parent[child] = child;
+      size[root] -= size[child];
+      status[root] = rootStatus;
+    }
+
+    status[site] = 0;
+    openSites--;
+    percolates = (header & 1) != 0;
+  }
+
+  // returns a mark that rollback() can return to
+  public int checkpoint() {
+    return openSites;
+  }
+
+  // undoes every open made after checkpoint() returned mark
+  public void rollback(int mark) {
+    if (mark < 0 || mark > openSites) {
+      throw new IllegalArgumentException("unknown checkpoint " + mark);
+    }
+
+    while (openSites > mark) {
+      close();
+    }
+  }
+
+  private void push(int first, int second) {
+    if (logSize + 2 > log.length) {
+      log = Arrays.copyOf(log, log.length * 2);
+    }
+    log[logSize++] = first;
+    log[logSize++] = second;
+  }
+
+  // root of the site; paths are never compressed so unions stay undoable
+  private int find(int p) {
+    while (p != parent[p]) {
+      p = parent[p];
+    }
+    return p;
+  }
+
+  // is the site (row, col) open?
+  public boolean isOpen(int row, int col) {
+    validateIndicies(row, col);
+    return (status[convertTo1DIndex(row, col)] & OPEN) != 0;
+  }
+
+  // is the site (row, col) full?
+  public boolean isFull(int row, int col) {
+    validateIndicies(row, col);
+
+    final int index = convertTo1DIndex(row, col);
+    if ((status[index] & OPEN) == 0) {
+      return false;
+    }
+
+    return (status[find(index)] & TOP) != 0;
+  }
+
+  // returns the number of open sites
+  public int numberOfOpenSites() {
+    return openSites;
+  }
+
+  // does the system percolate?
+  public boolean percolates() {
+    return percolates;
+  }
+
+  private void validateIndicies(int row, int col) {
+    if (row < 1 || row > rowSize || col < 1 || col > rowSize) {
+      throw new IllegalArgumentException();
+    }
+  }
+
+  private int convertTo1DIndex(int row, int col) {
+    return (row - 1) * rowSize + (col - 1);
+  }
+
+  // test client (optional)
+  public static void main(String[] args) {
+  }
+}
@@ -0,0 +1,237 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Little-endian binary checkpoint file. Arrays go through one direct
+// buffer with bulk int/long/double views, so saving and loading run at
+// channel speed with no per-element stream calls. A file being written is
+// kept under a temporary name and only moved into place by commit(), so a
+// save that fails or crashes part way never destroys the previous
+// checkpoint; closing without commit() deletes the temporary file. A
+// file opened by append() is written in place, for logs whose readers
+// ignore an incomplete last record.
+public final class StateFile implements Closeable {
+  private static final int BUFFER_BYTES = 1 << 20;
+
+  private final Path file;
+  private final Path temporary;
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final boolean writable;
+  private boolean committed;
+
+  private StateFile(Path file, Path temporary, FileChannel channel,
+      boolean writable) {
+    this.file = file;
+    this.temporary = temporary;
+    this.channel = channel;
+    this.writable = writable;
+    buffer = ByteBuffer.allocateDirect(BUFFER_BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    if (!writable) {
+      buffer.limit(0);
+    }
+  }
+
+  // starts writing a checkpoint that replaces file on commit()
+  public static StateFile create(Path file) throws IOException {
+    final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    return new StateFile(file, temporary, FileChannel.open(temporary,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE), true);
+  }
+
+  // opens a checkpoint for reading
+  public static StateFile open(Path file) throws IOException {
+    return new StateFile(file, null,
+        FileChannel.open(file, StandardOpenOption.READ), false);
+  }
+
+  // continues writing file in place after its first length bytes, cutting
+  // off anything beyond them; commit() makes the new bytes durable
+  public static StateFile append(Path file, long length) throws IOException {
+    final FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.WRITE);
+    channel.truncate(length);
+    channel.position(length);
+    return new StateFile(file, null, channel, true);
+  }
+
+  public void writeInt(int value) throws IOException {
+    reserve(Integer.BYTES);
+    buffer.putInt(value);
+  }
+
+  public void writeLong(long value) throws IOException {
+    reserve(Long.BYTES);
+    buffer.putLong(value);
+  }
+
+  public void writeBytes(byte[] values) throws IOException {
+    for (int i = 0; i < values.length;) {
+      reserve(Byte.BYTES);
+      final int count = Math.min(values.length - i, buffer.remaining());
+      buffer.put(values, i, count);
+      i += count;
+    }
+  }
+
+  public void writeInts(int[] values) throws IOException {
+    for (int i = 0; i < values.length;) {
+      reserve(Integer.BYTES);
+      final int count =
+          Math.min(values.length - i, buffer.remaining() / Integer.BYTES);
+      buffer.asIntBuffer().put(values, i, count);
+      buffer.position(buffer.position() + count * Integer.BYTES);
+      i += count;
+    }
+  }
+
+  // writes values[offset] up to values[offset + length - 1]
+  public void writeDoubles(double[] values, int offset, int length)
+      throws IOException {
+    final int end = offset + length;
+    for (int i = offset; i < end;) {
+      reserve(Double.BYTES);
+      final int count =
+          Math.min(end - i, buffer.remaining() / Double.BYTES);
+      buffer.asDoubleBuffer().put(values, i, count);
+      buffer.position(buffer.position() + count * Double.BYTES);
+      i += count;
+    }
+  }
+
+  // writes the flags packed 64 to a long
+  public void writeBits(boolean[] values) throws IOException {
+    for (int i = 0; i < values.length; i += Long.SIZE) {
+      long word = 0;
+      final int end = Math.min(values.length, i + Long.SIZE);
+      for (int j = i; j < end; j++) {
+        if (values[j]) {
+          word |= 1L << j;
+        }
+      }
+      writeLong(word);
+    }
+  }
+
+  public int readInt() throws IOException {
+    fill(Integer.BYTES);
+    return buffer.getInt();
+  }
+
+  public long readLong() throws IOException {
+    fill(Long.BYTES);
+    return buffer.getLong();
+  }
+
+  public void readBytes(byte[] values) throws IOException {
+    for (int i = 0; i < values.length;) {
+      fill(Byte.BYTES);
+      final int count = Math.min(values.length - i, buffer.remaining());
+      buffer.get(values, i, count);
+      i += count;
+    }
+  }
+
+  public void readInts(int[] values) throws IOException {
+    for (int i = 0; i < values.length;) {
+      fill(Integer.BYTES);
+      final int count =
+          Math.min(values.length - i, buffer.remaining() / Integer.BYTES);
+      buffer.asIntBuffer().get(values, i, count);
+      buffer.position(buffer.position() + count * Integer.BYTES);
+      i += count;
+    }
+  }
+
+  // reads into values[offset] up to values[offset + length - 1]
+  public void readDoubles(double[] values, int offset, int length)
+      throws IOException {
+    final int end = offset + length;
+    for (int i = offset; i < end;) {
+      fill(Double.BYTES);
+      final int count =
+          Math.min(end - i, buffer.remaining() / Double.BYTES);
+      buffer.asDoubleBuffer().get(values, i, count);
+      buffer.position(buffer.position() + count * Double.BYTES);
+      i += count;
+    }
+  }
+
+  // reads flags written by writeBits()
+  public void readBits(boolean[] values) throws IOException {
+    for (int i = 0; i < values.length; i += Long.SIZE) {
+      final long word = readLong();
+      final int end = Math.min(values.length, i + Long.SIZE);
+      for (int j = i; j < end; j++) {
+        values[j] = (word & (1L << j)) != 0;
+      }
+    }
+  }
+
+  // finishes a written checkpoint and moves it over the previous one, or
+  // forces appended bytes to disk; the last call of every save
+  public void commit() throws IOException {
+    if (!writable) {
+      throw new IllegalStateException("checkpoint was opened for reading");
+    }
+
+    flush();
+    channel.force(true);
+    if (temporary != null) {
+      channel.close();
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    }
+    committed = true;
+  }
+
+  // closes the file; a written checkpoint that was never committed is
+  // discarded and the previous one is left in place
+  @Override
+  public void close() throws IOException {
+    try {
+      channel.close();
+    } finally {
+      if (temporary != null && !committed) {
+        Files.deleteIfExists(temporary);
+      }
+    }
+  }
+
+  private void reserve(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private void fill(int bytes) throws IOException {
+    if (buffer.remaining() >= bytes) {
+      return;
+    }
+
+    buffer.compact();
+    while (buffer.position() < bytes) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("truncated checkpoint");
+      }
+    }
+    buffer.flip();
+  }
+}
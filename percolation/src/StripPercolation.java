@@ -0,0 +1,244 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+// Batch percolation of a complete open-site configuration. The grid is cut
+// into horizontal strips whose clusters are labelled in parallel; only the
+// rows on either side of a strip boundary are then merged, after which
+// every site points straight at its root and isFull() is a lookup.
+public class StripPercolation {
+  private static final int BLOCKED = -1;
+  private static final byte TOP = 1;
+  private static final byte BOTTOM = 2;
+
+  // BLOCKED for blocked sites, otherwise the root of the site's cluster
+  private final int[] parent;
+  private final byte[] flags;
+  private final int rowSize;
+  private final int openSites;
+  private final boolean percolates;
+
+  // labels the n-by-n configuration open (row-major) on the common pool
+  public StripPercolation(int n, boolean[] open) {
+    this(n, open, ForkJoinPool.commonPool());
+  }
+
+  // labels the n-by-n configuration open (row-major) on the executor
+  public StripPercolation(int n, boolean[] open, ExecutorService executor) {
+    if (n <= 0 || open == null || executor == null
+        || open.length != n * n) {
+      throw new IllegalArgumentException("invalid parameters");
+    }
+
+    rowSize = n;
+    parent = new int[n * n];
+    flags = new byte[n * n];
+
+    final int cpus = Runtime.getRuntime().availableProcessors();
+    final int strips = Math.min(n, cpus * 2);
+    final int[] stripStart = new int[strips + 1];
+    for (int s = 0; s <= strips; s++) {
+      stripStart[s] = (int) ((long) n * s / strips);
+    }
+
+    final int[] stripOpen = new int[strips];
+    final List<Callable<Void>> label = new ArrayList<>(strips);
+    for (int s = 0; s < strips; s++) {
+      final int strip = s;
+      label.add(() -> {
+        stripOpen[strip] = labelStrip(open, stripStart[strip],
+            stripStart[strip + 1]);
+        return null;
+      });
+    }
+    PercolationStats.runAll(executor, label);
+
+    // only the rows either side of each boundary see other strips
+    for (int s = 1; s < strips; s++) {
+      final int below = stripStart[s] * n;
+      for (int col = 0; col < n; col++) {
+        if (parent[below + col] != BLOCKED
+            && parent[below - n + col] != BLOCKED) {
+          union(below + col, below - n + col);
+        }
+      }
+    }
+
+    final List<Callable<Void>> flatten = new ArrayList<>(strips);
+    for (int s = 0; s < strips; s++) {
+      final int lo = stripStart[s] * n;
+      final int hi = stripStart[s + 1] * n;
+      flatten.add(() -> {
+        for (int i = lo; i < hi; i++) {
+          if (parent[i] != BLOCKED) {
+            parent[i] = root(i);
+          }
+        }
+        return null;
+      });
+    }
+    PercolationStats.runAll(executor, flatten);
+
+    int count = 0;
+    for (int s = 0; s < strips; s++) {
+      count += stripOpen[s];
+    }
+    openSites = count;
+
+    final int lastRow = (n - 1) * n;
+    boolean spans = false;
+    for (int col = 0; col < n; col++) {
+      if (parent[col] != BLOCKED) {
+        flags[parent[col]] |= TOP;
+      }
+    }
+    for (int col = 0; col < n; col++) {
+      if (parent[lastRow + col] != BLOCKED) {
+        flags[parent[lastRow + col]] |= BOTTOM;
+        spans |= (flags[parent[lastRow + col]] & TOP) != 0;
+      }
+    }
+    percolates = spans;
+  }
+
+  // labels rows [fromRow, toRow) using only sites inside the strip, returns
+  // the number of open sites in it
+  private int labelStrip(boolean[] open, int fromRow, int toRow) {
+    int count = 0;
+
+    for (int row = fromRow; row < toRow; row++) {
+      for (int col = 0; col < rowSize; col++) {
+        final int i = row * rowSize + col;
+        if (!open[i]) {
+          parent[i] = BLOCKED;
+          continue;
+        }
+
+        parent[i] = i;
+        count++;
+
+        if (col > 0 && open[i - 1]) {
+          union(i, i - 1);
+        }
+        if (row > fromRow && open[i - rowSize]) {
+          union(i, i - rowSize);
+        }
+      }
+    }
+
+    return count;
+  }
+
+  // links the larger root under the smaller, keeping roots in the top rows
+  private void union(int p, int q) {
+    final int rootP = find(p);
+    final int rootQ = find(q);
+    if (rootP < rootQ) {
+      parent[rootQ] = rootP;
+    } else if (rootQ < rootP) {
+      parent[rootP] = rootQ;
+    }
+  }
+
+  // root of the site, halving the path on the way up
+  private int find(int p) {
+    while (p != parent[p]) {
+      parent[p] = parent[parent[p]];
+      p = parent[p];
+    }
+    return p;
+  }
+
+  // root of the site without writing, safe while other strips flatten
+  private int root(int p) {
+    while (p != parent[p]) {
+      p = parent[p];
+    }
+    return p;
+  }
+
+  // returns the first number of opens in order after which the n-by-n grid
+  // percolates, or -1 if it never does; order holds row-major site indices
+  public static int percolationTime(int n, int[] order) {
+    if (n <= 0 || order == null) {
+      throw new IllegalArgumentException("invalid parameters");
+    }
+
+    final boolean[] open = new boolean[n * n];
+    int lo = 1;
+    int hi = order.length;
+    int found = -1;
+
+    // percolation is monotone in the number of opens
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      Arrays.fill(open, false);
+      for (int k = 0; k < mid; k++) {
+        open[order[k]] = true;
+      }
+
+      if (new StripPercolation(n, open).percolates()) {
+        found = mid;
+        hi = mid - 1;
+      } else {
+        lo = mid + 1;
+      }
+    }
+
+    return found;
+  }
+
+  // is the site (row, col) open?
+  public boolean isOpen(int row, int col) {
+    validateIndicies(row, col);
+    return parent[convertTo1DIndex(row, col)] != BLOCKED;
+  }
+
+  // is the site (row, col) full?
+  public boolean isFull(int row, int col) {
+    validateIndicies(row, col);
+
+    final int root = parent[convertTo1DIndex(row, col)];
+    return root != BLOCKED && (flags[root] & TOP) != 0;
+  }
+
+  // returns the number of open sites
+  public int numberOfOpenSites() {
+    return openSites;
+  }
+
+  // does the system percolate?
+  public boolean percolates() {
+    return percolates;
+  }
+
+  private void validateIndicies(int row, int col) {
+    if (row < 1 || row > rowSize || col < 1 || col > rowSize) {
+      throw new IllegalArgumentException();
+    }
+  }
+
+  private int convertTo1DIndex(int row, int col) {
+    return (row - 1) * rowSize + (col - 1);
+  }
+
+  // percolates a random configuration with open probability p
+  public static void main(String[] args) {
+    final int n = Integer.parseInt(args[0]);
+    final double p = Double.parseDouble(args[1]);
+
+    final boolean[] open = new boolean[n * n];
+    final SplittableRandom random = new SplittableRandom();
+    for (int i = 0; i < open.length; i++) {
+      open[i] = random.nextDouble() < p;
+    }
+
+    final StripPercolation percolation = new StripPercolation(n, open);
+    System.out.println("open sites = " + percolation.numberOfOpenSites());
+    System.out.println("percolates = " + percolation.percolates());
+  }
+}
@@ -0,0 +1,175 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Streaming statistics of percolation thresholds: Welford's running mean
+// and variance plus a fixed-bin histogram over [0, 1] as quantile sketch.
+// Memory does not grow with the number of values, every method can be
+// called while other threads are still adding, and two instances built by
+// different threads or processes can be merged.
+public class ThresholdStats {
+  private static final int BINS = 4096;
+
+  private final long[] histogram = new long[BINS];
+  private long count;
+  private double mean;
+  private double squares;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  // folds one threshold in [0, 1] into the statistics
+  public synchronized void add(double value) {
+    if (!(value >= 0.0 && value <= 1.0)) {
+      throw new IllegalArgumentException("threshold must be in [0, 1]");
+    }
+
+    count++;
+    final double delta = value - mean;
+    mean += delta / count;
+    squares += delta * (value - mean);
+
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+    histogram[bin(value)]++;
+  }
+
+  // folds all values seen by other into these statistics
+  public void merge(ThresholdStats other) {
+    if (other == null || other == this) {
+      throw new IllegalArgumentException("invalid statistics");
+    }
+
+    final ThresholdStats copy = other.copy();
+    synchronized (this) {
+      if (copy.count == 0) {
+        return;
+      }
+
+      // Chan et al.'s pairwise update of mean and sum of squares
+      final long total = count + copy.count;
+      final double delta = copy.mean - mean;
+      mean += delta * copy.count / total;
+      squares += copy.squares + delta * delta * count * copy.count / total;
+      count = total;
+
+      min = Math.min(min, copy.min);
+      max = Math.max(max, copy.max);
+      for (int i = 0; i < BINS; i++) {
+        histogram[i] += copy.histogram[i];
+      }
+    }
+  }
+
+  // returns a consistent copy, for reading several values at one point
+  public synchronized ThresholdStats copy() {
+    final ThresholdStats copy = new ThresholdStats();
+    System.arraycopy(histogram, 0, copy.histogram, 0, BINS);
+    copy.count = count;
+    copy.mean = mean;
+    copy.squares = squares;
+    copy.min = min;
+    copy.max = max;
+    return copy;
+  }
+
+  // number of values folded in so far
+  public synchronized long count() {
+    return count;
+  }
+
+  // sample mean, NaN before the first value
+  public synchronized double mean() {
+    return count == 0 ? Double.NaN : mean;
+  }
+
+  // sample standard deviation, NaN before the second value
+  public synchronized double stddev() {
+    return count < 2 ? Double.NaN : Math.sqrt(squares / (count - 1));
+  }
+
+  // low endpoint of 95% confidence interval
+  public synchronized double confidenceLo() {
+    return mean() - 1.96 * stddev() / Math.sqrt(count);
+  }
+
+  // high endpoint of 95% confidence interval
+  public synchronized double confidenceHi() {
+    return mean() + 1.96 * stddev() / Math.sqrt(count);
+  }
+
+  // smallest value, NaN before the first value
+  public synchronized double min() {
+    return count == 0 ? Double.NaN : min;
+  }
+
+  // largest value, NaN before the first value
+  public synchronized double max() {
+    return count == 0 ? Double.NaN : max;
+  }
+
+  // approximate q-quantile, interpolating linearly between the order
+  // statistics at ranks floor and ceil of q * (count - 1) like the exact
+  // sample quantile; each order statistic is placed inside its own bin, so
+  // the result is less than one bin (1 / 4096) from the exact one
+  public synchronized double quantile(double q) {
+    if (!(q >= 0.0 && q <= 1.0)) {
+      throw new IllegalArgumentException("q must be in [0, 1]");
+    }
+    if (count == 0) {
+      return Double.NaN;
+    }
+
+    final double rank = q * (count - 1);
+    final long below = (long) Math.floor(rank);
+    final long above = Math.min(count - 1, below + 1);
+    final double lo = orderStatistic(below);
+    final double hi = orderStatistic(above);
+    return lo + (rank - below) * (hi - lo);
+  }
+
+  // estimate of the k-th smallest value (from 0), spreading the values of
+  // its bin evenly over the bin's width
+  private double orderStatistic(long k) {
+    long seen = 0;
+    for (int i = 0; i < BINS; i++) {
+      if (seen + histogram[i] > k) {
+        final double within = (k - seen + 0.5) / histogram[i];
+        final double value = (i + within) / BINS;
+        return Math.max(min, Math.min(max, value));
+      }
+      seen += histogram[i];
+    }
+    return max;
+  }
+
+  // writes the statistics so another process can read and merge them
+  public void writeTo(DataOutput out) throws IOException {
+    final ThresholdStats copy = copy();
+    out.writeLong(copy.count);
+    out.writeDouble(copy.mean);
+    out.writeDouble(copy.squares);
+    out.writeDouble(copy.min);
+    out.writeDouble(copy.max);
+    for (int i = 0; i < BINS; i++) {
+      out.writeLong(copy.histogram[i]);
+    }
+  }
+
+  // reads statistics written by writeTo()
+  public static ThresholdStats readFrom(DataInput in) throws IOException {
+    final ThresholdStats stats = new ThresholdStats();
+    stats.count = in.readLong();
+    stats.mean = in.readDouble();
+    stats.squares = in.readDouble();
+    stats.min = in.readDouble();
+    stats.max = in.readDouble();
+    for (int i = 0; i < BINS; i++) {
+      stats.histogram[i] = in.readLong();
+    }
+    return stats;
+  }
+
+  private static int bin(double value) {
+    return Math.min(BINS - 1, (int) (value * BINS));
+  }
+}
@@ -0,0 +1,20 @@
+import java.io.IOException;
+
+// Disjoint sets over the elements 0..n-1, as used by Percolation.
+public interface UnionFind {
+  // returns the canonical element of the component containing p
+  int find(int p);
+
+  // merges the component containing p with the component containing q
+  void union(int p, int q);
+
+  // puts every element back into its own component
+  void reset();
+
+  // writes the internal arrays to a checkpoint
+  void writeTo(StateFile file) throws IOException;
+
+  // replaces the internal arrays with ones writeTo() wrote for a structure
+  // of the same type and size
+  void readFrom(StateFile file) throws IOException;
+}
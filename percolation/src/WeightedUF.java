@@ -0,0 +1,72 @@
+import java.io.IOException;
+
+// Weighted quick-union over int arrays, like algs4's WeightedQuickUnionUF
+// but with reset() so the arrays can be reused instead of reallocated.
+public class WeightedUF implements UnionFind {
+  private final int[] parent;
+  private final int[] size;
+
+  // initializes n elements, each in its own component
+  public WeightedUF(int n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("n is negative");
+    }
+
+    parent = new int[n];
+    size = new int[n];
+    reset();
+  }
+
+  @Override
+  public void reset() {
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+      size[i] = 1;
+    }
+  }
+
+  @Override
+  public int find(int p) {
+    validate(p);
+    while (p != parent[p]) {
+      p = parent[p];
+    }
+    return p;
+  }
+
+  @Override
+  public void union(int p, int q) {
+    final int rootP = find(p);
+    final int rootQ = find(q);
+    if (rootP == rootQ) {
+      return;
+    }
+
+    if (size[rootP] < size[rootQ]) {
+      parent[rootP] = rootQ;
+      size[rootQ] += size[rootP];
+    } else {
+      parent[rootQ] = rootP;
+      size[rootP] += size[rootQ];
+    }
+  }
+
+  @Override
+  public void writeTo(StateFile file) throws IOException {
+    file.writeInts(parent);
+    file.writeInts(size);
+  }
+
+  @Override
+  public void readFrom(StateFile file) throws IOException {
+    file.readInts(parent);
+    file.readInts(size);
+  }
+
+  private void validate(int p) {
+    if (p < 0 || p >= parent.length) {
+      throw new IllegalArgumentException(
+          "index " + p + " is not between 0 and " + (parent.length - 1));
+    }
+  }
+}
@@ -0,0 +1,612 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.princeton.cs.algs4.StdOut;
+
+// Bounded deque for producer/consumer pipelines. One lock guards a fixed
+// circular array; producers wait on notFull and consumers on notEmpty, and
+// the batch operations take the lock once for the whole batch. The lock
+// also guards simple occupancy and wait-time counters.
+public class BoundedBlockingDeque<Item> implements Iterable<Item>
+{
+    private final Item[] items;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+
+    private int head;
+    private int size;
+
+    private int peakSize;
+    private long producerWaits;
+    private long producerWaitNanos;
+    private long consumerWaits;
+    private long consumerWaitNanos;
+
+    // construct an empty deque holding at most capacity items
+    public BoundedBlockingDeque(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        items = (Item[]) new Object[capacity];
+        lock = new ReentrantLock();
+        notEmpty = lock.newCondition();
+        notFull = lock.newCondition();
+        head = 0;
+        size = 0;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    // return the number of items on the deque
+    public int size()
+    {
+        lock.lock();
+        try
+        {
+            return size;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // return the most items the deque can hold
+    public int capacity()
+    {
+        return items.length;
+    }
+
+    // add the item to the front, throwing IllegalStateException if full
+    public void addFirst(Item item)
+    {
+        if (!offerFirst(item))
+        {
+            throw new IllegalStateException("deque is full");
+        }
+    }
+
+    // add the item to the back, throwing IllegalStateException if full
+    public void addLast(Item item)
+    {
+        if (!offerLast(item))
+        {
+            throw new IllegalStateException("deque is full");
+        }
+    }
+
+    // add the item to the front if there is room, without waiting
+    public boolean offerFirst(Item item)
+    {
+        return offer(item, true);
+    }
+
+    // add the item to the back if there is room, without waiting
+    public boolean offerLast(Item item)
+    {
+        return offer(item, false);
+    }
+
+    // add the item to the front, waiting up to timeout for room
+    public boolean offerFirst(Item item, long timeout, TimeUnit unit)
+            throws InterruptedException
+    {
+        return offer(item, true, unit.toNanos(timeout));
+    }
+
+    // add the item to the back, waiting up to timeout for room
+    public boolean offerLast(Item item, long timeout, TimeUnit unit)
+            throws InterruptedException
+    {
+        return offer(item, false, unit.toNanos(timeout));
+    }
+
+    // add the item to the front, waiting as long as it takes for room
+    public void putFirst(Item item) throws InterruptedException
+    {
+        offer(item, true, Long.MAX_VALUE);
+    }
+
+    // add the item to the back, waiting as long as it takes for room
+    public void putLast(Item item) throws InterruptedException
+    {
+        offer(item, false, Long.MAX_VALUE);
+    }
+
+    private boolean offer(Item item, boolean first)
+    {
+        if (item == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        lock.lock();
+        try
+        {
+            if (size == items.length)
+            {
+                return false;
+            }
+
+            insert(item, first);
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private boolean offer(Item item, boolean first, long nanos)
+            throws InterruptedException
+    {
+        if (item == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        lock.lockInterruptibly();
+        try
+        {
+            if (!awaitRoom(nanos))
+            {
+                return false;
+            }
+
+            insert(item, first);
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // adds the item at one end; the lock is held and there is room
+    private void insert(Item item, boolean first)
+    {
+        if (first)
+        {
+            head = (head - 1 + items.length) % items.length;
+            items[head] = item;
+        }
+        else
+        {
+            items[(head + size) % items.length] = item;
+        }
+
+        size++;
+        peakSize = Math.max(peakSize, size);
+        notEmpty.signal();
+    }
+
+    // waits up to nanos while the deque is full, returns false on timeout
+    private boolean awaitRoom(long nanos) throws InterruptedException
+    {
+        if (size < items.length)
+        {
+            return true;
+        }
+
+        final long start = System.nanoTime();
+        producerWaits++;
+        try
+        {
+            long remaining = nanos;
+            while (size == items.length)
+            {
+                if (remaining <= 0)
+                {
+                    return false;
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            return true;
+        }
+        finally
+        {
+            producerWaitNanos += System.nanoTime() - start;
+        }
+    }
+
+    // add every item of the batch to the back under one lock, or none of
+    // them if they do not all fit
+    public void addAll(Collection<? extends Item> batch)
+    {
+        if (batch == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        lock.lock();
+        try
+        {
+            if (batch.size() > items.length - size)
+            {
+                throw new IllegalStateException("batch does not fit");
+            }
+
+            int added = 0;
+            for (Item item : batch)
+            {
+                if (item == null)
+                {
+                    // clear the part of the batch written so far
+                    for (int i = 0; i < added; i++)
+                    {
+                        items[(head + size + i) % items.length] = null;
+                    }
+                    throw new IllegalArgumentException();
+                }
+
+                items[(head + size + added) % items.length] = item;
+                added++;
+            }
+
+            size += added;
+            peakSize = Math.max(peakSize, size);
+            if (added > 0)
+            {
+                notEmpty.signalAll();
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // remove and return the item from the front
+    public Item removeFirst()
+    {
+        final Item item = pollFirst();
+
+        if (item == null)
+        {
+            throw new NoSuchElementException();
+        }
+
+        return item;
+    }
+
+    // remove and return the item from the back
+    public Item removeLast()
+    {
+        final Item item = pollLast();
+
+        if (item == null)
+        {
+            throw new NoSuchElementException();
+        }
+
+        return item;
+    }
+
+    // remove and return the item from the front, or null if empty
+    public Item pollFirst()
+    {
+        return poll(true);
+    }
+
+    // remove and return the item from the back, or null if empty
+    public Item pollLast()
+    {
+        return poll(false);
+    }
+
+    // remove and return the item from the front, waiting up to timeout for
+    // one; null on timeout
+    public Item pollFirst(long timeout, TimeUnit unit)
+            throws InterruptedException
+    {
+        return poll(true, unit.toNanos(timeout));
+    }
+
+    // remove and return the item from the back, waiting up to timeout for
+    // one; null on timeout
+    public Item pollLast(long timeout, TimeUnit unit)
+            throws InterruptedException
+    {
+        return poll(false, unit.toNanos(timeout));
+    }
+
+    // remove and return the item from the front, waiting as long as it takes
+    public Item takeFirst() throws InterruptedException
+    {
+        return poll(true, Long.MAX_VALUE);
+    }
+
+    // remove and return the item from the back, waiting as long as it takes
+    public Item takeLast() throws InterruptedException
+    {
+        return poll(false, Long.MAX_VALUE);
+    }
+
+    private Item poll(boolean first)
+    {
+        lock.lock();
+        try
+        {
+            return size == 0 ? null : extract(first);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private Item poll(boolean first, long nanos) throws InterruptedException
+    {
+        lock.lockInterruptibly();
+        try
+        {
+            return awaitItem(nanos) ? extract(first) : null;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // removes the item at one end; the lock is held and there is one
+    private Item extract(boolean first)
+    {
+        final int slot = first ? head : (head + size - 1) % items.length;
+        final Item removed = items[slot];
+        items[slot] = null;
+        if (first)
+        {
+            head = (head + 1) % items.length;
+        }
+
+        size--;
+        notFull.signal();
+        return removed;
+    }
+
+    // waits up to nanos while the deque is empty, returns false on timeout
+    private boolean awaitItem(long nanos) throws InterruptedException
+    {
+        if (size > 0)
+        {
+            return true;
+        }
+
+        final long start = System.nanoTime();
+        consumerWaits++;
+        try
+        {
+            long remaining = nanos;
+            while (size == 0)
+            {
+                if (remaining <= 0)
+                {
+                    return false;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            return true;
+        }
+        finally
+        {
+            consumerWaitNanos += System.nanoTime() - start;
+        }
+    }
+
+    // move up to max items from the front into sink under one lock, returns
+    // how many were moved
+    public int drainTo(Collection<? super Item> sink, int max)
+    {
+        if (sink == null || max < 0)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        lock.lock();
+        try
+        {
+            final int count = Math.min(max, size);
+            for (int i = 0; i < count; i++)
+            {
+                sink.add(items[head]);
+                items[head] = null;
+                head = (head + 1) % items.length;
+                size--;
+            }
+
+            if (count > 0)
+            {
+                notFull.signalAll();
+            }
+            return count;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // most items the deque has held at once
+    public int peakSize()
+    {
+        lock.lock();
+        try
+        {
+            return peakSize;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // number of times a producer had to wait for room
+    public long producerWaits()
+    {
+        lock.lock();
+        try
+        {
+            return producerWaits;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // total nanoseconds producers spent waiting for room
+    public long producerWaitNanos()
+    {
+        lock.lock();
+        try
+        {
+            return producerWaitNanos;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // number of times a consumer had to wait for an item
+    public long consumerWaits()
+    {
+        lock.lock();
+        try
+        {
+            return consumerWaits;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // total nanoseconds consumers spent waiting for an item
+    public long consumerWaitNanos()
+    {
+        lock.lock();
+        try
+        {
+            return consumerWaitNanos;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // return an iterator over a snapshot of the items from front to back
+    public Iterator<Item> iterator()
+    {
+        final Object[] copy;
+
+        lock.lock();
+        try
+        {
+            copy = new Object[size];
+            for (int i = 0; i < size; i++)
+            {
+                copy[i] = items[(head + i) % items.length];
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        return new Iterator<Item>()
+        {
+            private int ctr = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return ctr < copy.length;
+            }
+
+            @Override
+            public Item next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+
+                return (Item) copy[ctr++];
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    // unit testing (required)
+    public static void main(String[] args) throws InterruptedException
+    {
+        final BoundedBlockingDeque<Integer> buffer =
+                new BoundedBlockingDeque<>(64);
+        final int n = 100000;
+
+        final Thread producer = new Thread(() ->
+        {
+            try
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    buffer.putLast(i);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        final ArrayList<Integer> batch = new ArrayList<>();
+        long sum = 0;
+        int received = 0;
+        while (received < n)
+        {
+            final Integer first = buffer.pollFirst(1, TimeUnit.SECONDS);
+            if (first == null)
+            {
+                break;
+            }
+
+            batch.clear();
+            batch.add(first);
+            buffer.drainTo(batch, 31);
+            for (int item : batch)
+            {
+                sum += item;
+            }
+            received += batch.size();
+        }
+        producer.join();
+
+        StdOut.println("received: " + received + " sum: " + sum);
+        StdOut.println("peak size: " + buffer.peakSize());
+        StdOut.println("producer waits: " + buffer.producerWaits() + " ("
+                + buffer.producerWaitNanos() / 1000000 + " ms)");
+        StdOut.println("consumer waits: " + buffer.consumerWaits() + " ("
+                + buffer.consumerWaitNanos() / 1000000 + " ms)");
+    }
+}
@@ -0,0 +1,346 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.princeton.cs.algs4.StdOut;
+
+// Randomized queue for many producers and consumers. Items are spread over
+// stripes, each a small RandomizedQueue-style array with its own lock and
+// random stream. A thread enqueues into the stripe its id maps to (moving
+// on if that one is busy), and dequeue() and sample() pick a stripe with
+// probability proportional to its size, so removal stays close to uniform
+// over all items while threads mostly touch different locks. There is no
+// shared counter: size() sums the stripe sizes, so while other threads run
+// it is only a snapshot.
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item>
+{
+    private static final int INIT_CAPACITY = 8;
+
+    private static final class Stripe
+    {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final SplittableRandom random;
+        private Object[] items = new Object[INIT_CAPACITY];
+        // written under the lock, read without it to weigh the stripes
+        private volatile int size;
+
+        private Stripe(SplittableRandom random)
+        {
+            this.random = random;
+        }
+
+        private void add(Object item)
+        {
+            if (size == items.length)
+            {
+                resizeArray(items.length * 2);
+            }
+            items[size] = item;
+            size++;
+        }
+
+        private Object remove()
+        {
+            final int randomIndex = random.nextInt(size);
+            final Object removed = items[randomIndex];
+            items[randomIndex] = items[size - 1];
+            items[size - 1] = null;
+            size--;
+
+            // shrink size of array if necessary
+            if (items.length > INIT_CAPACITY && size == items.length / 4)
+            {
+                resizeArray(items.length / 2);
+            }
+            return removed;
+        }
+
+        private Object sample()
+        {
+            return items[random.nextInt(size)];
+        }
+
+        private void resizeArray(int newSize)
+        {
+            final Object[] copy = new Object[newSize];
+            System.arraycopy(items, 0, copy, 0, size);
+            items = copy;
+        }
+    }
+
+    private final Stripe[] stripes;
+
+    // construct an empty randomized queue with two stripes per processor
+    public ConcurrentRandomizedQueue()
+    {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    // construct an empty randomized queue with the given number of stripes
+    public ConcurrentRandomizedQueue(int stripeCount)
+    {
+        if (stripeCount <= 0)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        final SplittableRandom root = new SplittableRandom();
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+        {
+            stripes[i] = new Stripe(root.split());
+        }
+    }
+
+    // is the randomized queue empty?
+    public boolean isEmpty()
+    {
+        for (Stripe stripe : stripes)
+        {
+            if (stripe.size > 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // return the number of items on the randomized queue
+    public int size()
+    {
+        int total = 0;
+        for (Stripe stripe : stripes)
+        {
+            total += stripe.size;
+        }
+        return total;
+    }
+
+    // add the item
+    public void enqueue(Item item)
+    {
+        if (item == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        final long id = Thread.currentThread().getId();
+        final int home = (int) (id % stripes.length);
+
+        // prefer this thread's stripe, but do not queue up behind a busy one
+        for (int i = 0; i < stripes.length; i++)
+        {
+            final Stripe stripe = stripes[(home + i) % stripes.length];
+            if (stripe.lock.tryLock())
+            {
+                try
+                {
+                    stripe.add(item);
+                    return;
+                }
+                finally
+                {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+
+        final Stripe stripe = stripes[home];
+        stripe.lock.lock();
+        try
+        {
+            stripe.add(item);
+        }
+        finally
+        {
+            stripe.lock.unlock();
+        }
+    }
+
+    // remove and return a random item
+    public Item dequeue()
+    {
+        return (Item) take(true);
+    }
+
+    // return a random item (but do not remove it)
+    public Item sample()
+    {
+        return (Item) take(false);
+    }
+
+    // takes or samples an item from a stripe chosen by size, falling back to
+    // a scan of all stripes when the sizes read were stale; an item enqueued
+    // behind the scan sends it round again, so this only fails once every
+    // stripe is empty
+    private Object take(boolean remove)
+    {
+        do
+        {
+            final int first = pickStripe();
+
+            for (int i = 0; i < stripes.length; i++)
+            {
+                final Stripe stripe = stripes[(first + i) % stripes.length];
+                if (stripe.size == 0)
+                {
+                    continue;
+                }
+
+                stripe.lock.lock();
+                try
+                {
+                    if (stripe.size > 0)
+                    {
+                        return remove ? stripe.remove() : stripe.sample();
+                    }
+                }
+                finally
+                {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+        while (!isEmpty());
+
+        throw new NoSuchElementException();
+    }
+
+    // index of a stripe drawn with probability proportional to its size
+    private int pickStripe()
+    {
+        long total = 0;
+        for (Stripe stripe : stripes)
+        {
+            total += stripe.size;
+        }
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        long target = ThreadLocalRandom.current().nextLong(total);
+        for (int i = 0; i < stripes.length; i++)
+        {
+            target -= stripes[i].size;
+            if (target < 0)
+            {
+                return i;
+            }
+        }
+        return stripes.length - 1;
+    }
+
+    // return an independent iterator over a snapshot of the items in random
+    // order; items added or removed meanwhile may or may not be seen
+    public Iterator<Item> iterator()
+    {
+        Object[] copy = new Object[Math.max(INIT_CAPACITY, size())];
+        int count = 0;
+
+        for (Stripe stripe : stripes)
+        {
+            stripe.lock.lock();
+            try
+            {
+                final int needed = count + stripe.size;
+                if (needed > copy.length)
+                {
+                    final Object[] bigger =
+                            new Object[Math.max(copy.length * 2, needed)];
+                    System.arraycopy(copy, 0, bigger, 0, count);
+                    copy = bigger;
+                }
+                System.arraycopy(stripe.items, 0, copy, count, stripe.size);
+                count += stripe.size;
+            }
+            finally
+            {
+                stripe.lock.unlock();
+            }
+        }
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = count - 1; i > 0; i--)
+        {
+            final int j = random.nextInt(i + 1);
+            final Object swap = copy[i];
+            copy[i] = copy[j];
+            copy[j] = swap;
+        }
+
+        final Object[] items = copy;
+        final int n = count;
+        return new Iterator<Item>()
+        {
+            private int ctr = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return ctr < n;
+            }
+
+            @Override
+            public Item next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+
+                return (Item) items[ctr++];
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    // unit testing (required)
+    public static void main(String[] args) throws InterruptedException
+    {
+        final ConcurrentRandomizedQueue<Integer> queue =
+                new ConcurrentRandomizedQueue<>();
+        final int threads = 4;
+        final int perThread = 100000;
+        final long[] sums = new long[threads];
+
+        final Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++)
+        {
+            final int id = t;
+            workers[t] = new Thread(() ->
+            {
+                for (int i = 0; i < perThread; i++)
+                {
+                    queue.enqueue(id * perThread + i);
+                    if (i % 2 == 1)
+                    {
+                        sums[id] += queue.dequeue();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+
+        long total = 0;
+        for (int t = 0; t < threads; t++)
+        {
+            workers[t].join();
+            total += sums[t];
+        }
+        while (!queue.isEmpty())
+        {
+            total += queue.dequeue();
+        }
+
+        final long n = (long) threads * perThread;
+        StdOut.println("sum: " + total + " expected: " + n * (n - 1) / 2);
+    }
+}
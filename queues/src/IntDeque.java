@@ -0,0 +1,193 @@
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class IntDeque implements Iterable<Integer>
+{
+    private static final int INIT_CAPACITY = 8;
+
+    // circular buffer of unboxed values; its length is always a power of
+    // two so that positions wrap with a mask instead of a division
+    private int[] items;
+    private int head;
+    private int size;
+
+    // construct an empty deque
+    public IntDeque()
+    {
+        items = new int[INIT_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public int size()
+    {
+        return size;
+    }
+
+    // add the item to the front
+    public void addFirst(int item)
+    {
+        if (size == items.length)
+        {
+            resizeArray(items.length * 2);
+        }
+
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+    }
+
+    // add the item to the back
+    public void addLast(int item)
+    {
+        if (size == items.length)
+        {
+            resizeArray(items.length * 2);
+        }
+
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    // return the item at the front without removing it
+    public int peekFirst()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+
+        return items[head];
+    }
+
+    // return the item at the back without removing it
+    public int peekLast()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+
+        return items[(head + size - 1) & (items.length - 1)];
+    }
+
+    // remove and return the item from the front
+    public int removeFirst()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+
+        final int removed = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+
+        shrinkIfSparse();
+        return removed;
+    }
+
+    // remove and return the item from the back
+    public int removeLast()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+
+        final int removed = items[(head + size - 1) & (items.length - 1)];
+        size--;
+
+        shrinkIfSparse();
+        return removed;
+    }
+
+    private void shrinkIfSparse()
+    {
+        if (items.length > INIT_CAPACITY && size == items.length / 4)
+        {
+            resizeArray(items.length / 2);
+        }
+    }
+
+    // copies the items to the start of a new array of the given length
+    private void resizeArray(int newSize)
+    {
+        int[] copy = new int[newSize];
+
+        final int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, copy, 0, firstPart);
+        System.arraycopy(items, 0, copy, firstPart, size - firstPart);
+
+        items = copy;
+        head = 0;
+    }
+
+    // return an unboxed iterator over items in order from front to back
+    public PrimitiveIterator.OfInt iterator()
+    {
+        return new PrimitiveIterator.OfInt()
+        {
+            private int ctr = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return ctr < size;
+            }
+
+            @Override
+            public int nextInt()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+
+                return items[(head + ctr++) & (items.length - 1)];
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    // unit testing (required)
+    public static void main(String[] args)
+    {
+        IntDeque numbers = new IntDeque();
+
+        numbers.addLast(5);
+        StdOut.println("removefirst: " + numbers.removeFirst());
+        numbers.addFirst(6);
+        StdOut.println("removelast: " + numbers.removeLast());
+        numbers.addLast(4);
+        numbers.addFirst(7);
+        numbers.addLast(3);
+        StdOut.println("removelast: " + numbers.removeLast());
+        numbers.addLast(2);
+        numbers.addFirst(8);
+        numbers.addLast(1);
+        numbers.addFirst(9);
+        StdOut.println("removelast: " + numbers.removeLast());
+
+        for (PrimitiveIterator.OfInt it = numbers.iterator(); it.hasNext();)
+        {
+            StdOut.println(it.nextInt());
+        }
+
+        StdOut.println("size: " + numbers.size());
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.NoSuchElementException;
+
+import edu.princeton.cs.algs4.StdOut;
+
+// Sliding-window minimum and maximum of long samples. Each side keeps a
+// monotonic deque of candidates: a new sample first drops every older
+// candidate it beats, since those can never be the answer again, so the
+// front is always the current extreme. Every sample enters and leaves each
+// deque at most once, which makes push, evict, min and max amortized O(1).
+public class LongMinMaxWindow
+{
+    // candidates for the minimum, increasing from front to back
+    private final LongDeque minValues = new LongDeque();
+    private final LongDeque minTimes = new LongDeque();
+    // candidates for the maximum, decreasing from front to back
+    private final LongDeque maxValues = new LongDeque();
+    private final LongDeque maxTimes = new LongDeque();
+
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    // is the window empty?
+    public boolean isEmpty()
+    {
+        return minValues.isEmpty();
+    }
+
+    // add a sample; timestamps must not decrease
+    public void push(long value, long timestamp)
+    {
+        if (timestamp < lastTimestamp)
+        {
+            throw new IllegalArgumentException("timestamp went backwards");
+        }
+        lastTimestamp = timestamp;
+
+        while (!minValues.isEmpty() && minValues.peekLast() >= value)
+        {
+            minValues.removeLast();
+            minTimes.removeLast();
+        }
+        minValues.addLast(value);
+        minTimes.addLast(timestamp);
+
+        while (!maxValues.isEmpty() && maxValues.peekLast() <= value)
+        {
+            maxValues.removeLast();
+            maxTimes.removeLast();
+        }
+        maxValues.addLast(value);
+        maxTimes.addLast(timestamp);
+    }
+
+    // drop every sample with a timestamp before olderThan
+    public void evict(long olderThan)
+    {
+        while (!minTimes.isEmpty() && minTimes.peekFirst() < olderThan)
+        {
+            minValues.removeFirst();
+            minTimes.removeFirst();
+        }
+
+        while (!maxTimes.isEmpty() && maxTimes.peekFirst() < olderThan)
+        {
+            maxValues.removeFirst();
+            maxTimes.removeFirst();
+        }
+    }
+
+    // smallest sample in the window
+    public long min()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+
+        return minValues.peekFirst();
+    }
+
+    // largest sample in the window
+    public long max()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+
+        return maxValues.peekFirst();
+    }
+
+    // unit testing (required)
+    public static void main(String[] args)
+    {
+        LongMinMaxWindow window = new LongMinMaxWindow();
+        long[] samples = { 5, 3, 8, 1, 9, 2, 7, 4, 6 };
+
+        for (int t = 0; t < samples.length; t++)
+        {
+            window.push(samples[t], t);
+            window.evict(t - 2);
+            StdOut.println("t=" + t + " min: " + window.min() + " max: "
+                    + window.max());
+        }
+    }
+}
@@ -1,3 +1,6 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
 
@@ -11,18 +14,38 @@ public class Permutation
         }
 
         Integer k = Integer.valueOf(args[0]);
-        RandomizedQueue<String> queue = new RandomizedQueue<>();
 
-        while (!StdIn.isEmpty())
+        // an optional second argument names a directory to spill the
+        // input to, for inputs that do not fit on the heap
+        if (args.length > 1)
         {
-            String item = StdIn.readString();
-            queue.enqueue(item);
+            spill(k, Paths.get(args[1]));
+            return;
         }
 
-        for (int i = 0; i < k; i++)
+        RandomizedQueue<String> queue = new RandomizedQueue<>();
+        queue.enqueueAll(StdIn.readAllStrings());
+
+        for (String item : queue.dequeue(k))
         {
-            String item = queue.dequeue();
             StdOut.println(item);
         }
     }
+
+    private static void spill(int k, Path directory)
+    {
+        try (SpillingRandomizedQueue queue =
+                new SpillingRandomizedQueue(directory))
+        {
+            while (!StdIn.isEmpty())
+            {
+                queue.enqueue(StdIn.readString());
+            }
+
+            for (int i = 0; i < k; i++)
+            {
+                StdOut.println(queue.dequeue());
+            }
+        }
+    }
 }
@@ -1,18 +1,40 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.StdRandom;
 
 public class RandomizedQueue<Item> implements Iterable<Item>
 {
     private static final int INIT_CAPACITY = 8;
     private Item[] items;
     private int size;
+    // changes on enqueue and dequeue, so iterators over the live array
+    // notice when it was rearranged under them
+    private int modCount;
+    private final RandomSource random;
 
-    // construct an empty randomized queue
+    // construct an empty randomized queue drawing from the calling thread's
+    // random generator
     public RandomizedQueue()
     {
+        this(RandomSource.threadLocal());
+    }
+
+    // construct an empty randomized queue drawing from the given source;
+    // a seeded source makes every dequeue, sample and iteration order
+    // repeat run to run
+    public RandomizedQueue(RandomSource random)
+    {
+        if (random == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        this.random = random;
         items = (Item[]) new Object[INIT_CAPACITY];
         size = 0;
     }
@@ -43,6 +65,86 @@ public class RandomizedQueue<Item> implements Iterable<Item>
         }
 
         items[size++] = item;
+        modCount++;
+    }
+
+    // add every item of the array, growing the backing array at most once
+    public void enqueueAll(Item[] batch)
+    {
+        if (batch == null)
+        {
+            throw new IllegalArgumentException();
+        }
+        for (Item item : batch)
+        {
+            if (item == null)
+            {
+                throw new IllegalArgumentException();
+            }
+        }
+
+        reserve(size + batch.length);
+        System.arraycopy(batch, 0, items, size, batch.length);
+        size += batch.length;
+        modCount++;
+    }
+
+    // add every item of the iterable, or none of them if one is null;
+    // collections reserve their size up front, other iterables grow by
+    // doubling as enqueue() does
+    public void enqueueAll(Iterable<? extends Item> batch)
+    {
+        if (batch == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        if (batch instanceof Collection)
+        {
+            reserve(size + ((Collection<?>) batch).size());
+        }
+
+        // items are written past size and only counted once all are in
+        int end = size;
+        for (Item item : batch)
+        {
+            if (item == null)
+            {
+                Arrays.fill(items, size, end, null);
+                throw new IllegalArgumentException();
+            }
+            if (end == items.length)
+            {
+                items = Arrays.copyOf(items, items.length * 2);
+            }
+            items[end++] = item;
+        }
+
+        if (end != size)
+        {
+            size = end;
+            modCount++;
+        }
+    }
+
+    // grow the backing array by doubling until it holds capacity items
+    private void reserve(int capacity)
+    {
+        if (capacity < 0)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        int newSize = items.length;
+        while (newSize < capacity)
+        {
+            newSize = newSize > Integer.MAX_VALUE / 2 ? capacity : newSize * 2;
+        }
+
+        if (newSize != items.length)
+        {
+            resizeArray(newSize);
+        }
     }
 
     private void resizeArray(int newSize)
@@ -75,14 +177,16 @@ public class RandomizedQueue<Item> implements Iterable<Item>
             {
                 items[0] = null;
                 size--;
+                modCount++;
             }
         }
 
-        final int randomIndex = StdRandom.uniformInt(size);
+        final int randomIndex = random.nextInt(size);
         final Item removed = items[randomIndex];
         items[randomIndex] = items[size - 1];
         items[size - 1] = null;
         size--;
+        modCount++;
 
         // shrink size of array if necessary
         if (size > 0 && size == items.length / 4)
@@ -93,6 +197,49 @@ public class RandomizedQueue<Item> implements Iterable<Item>
         return removed;
     }
 
+    // remove and return k distinct random items: a partial Fisher-Yates
+    // over the live array, moving the last item into each hole, followed
+    // by at most one shrink (back to the initial capacity once empty)
+    public List<Item> dequeue(int k)
+    {
+        if (k < 0)
+        {
+            throw new IllegalArgumentException();
+        }
+        if (k > size)
+        {
+            throw new NoSuchElementException();
+        }
+
+        final Item[] removed = (Item[]) new Object[k];
+        for (int i = 0; i < k; i++)
+        {
+            final int last = size - 1 - i;
+            final int randomIndex = random.nextInt(last + 1);
+            removed[i] = items[randomIndex];
+            items[randomIndex] = items[last];
+            items[last] = null;
+        }
+        size -= k;
+        modCount++;
+
+        int newSize = items.length;
+        if (size == 0)
+        {
+            newSize = Math.min(newSize, INIT_CAPACITY);
+        }
+        while (size > 0 && size <= newSize / 4)
+        {
+            newSize /= 2;
+        }
+        if (newSize != items.length)
+        {
+            resizeArray(newSize);
+        }
+
+        return Arrays.asList(removed);
+    }
+
     // return a random item (but do not remove it)
     public Item sample()
     {
@@ -101,31 +248,82 @@ public class RandomizedQueue<Item> implements Iterable<Item>
             throw new NoSuchElementException();
         }
 
-        final int randomIndex = StdRandom.uniformInt(size);
+        final int randomIndex = random.nextInt(size);
         return items[randomIndex];
     }
 
+    // return k distinct random items without removing them; the picks are
+    // swapped to the end of the live array as in dequeue(k), then swapped
+    // back in reverse order, so the queue and its iterators are untouched
+    public List<Item> sample(int k)
+    {
+        if (k < 0)
+        {
+            throw new IllegalArgumentException();
+        }
+        if (k > size)
+        {
+            throw new NoSuchElementException();
+        }
+
+        final Item[] sampled = (Item[]) new Object[k];
+        final int[] picks = new int[k];
+        for (int i = 0; i < k; i++)
+        {
+            final int last = size - 1 - i;
+            picks[i] = random.nextInt(last + 1);
+            sampled[i] = items[picks[i]];
+            items[picks[i]] = items[last];
+            items[last] = sampled[i];
+        }
+
+        for (int i = k - 1; i >= 0; i--)
+        {
+            final int last = size - 1 - i;
+            final Item swap = items[picks[i]];
+            items[picks[i]] = items[last];
+            items[last] = swap;
+        }
+
+        return Arrays.asList(sampled);
+    }
+
+    // Walks the live array in a random order without copying it: position
+    // i of the walk is a keyed Feistel permutation of i over the smallest
+    // 2h-bit domain holding size items, and values outside [0, size) are
+    // skipped (cycle walking, under four tries per item on average). This
+    // needs O(1) memory and no set-up pass before the first next().
     private final class RQIterator implements Iterator<Item>
     {
+        private static final int ROUNDS = 8;
+
+        private final int[] keys = new int[ROUNDS];
+        private final int n;
+        private final int halfBits;
+        private final int halfMask;
+        private final int expectedModCount;
+        private long position = 0;
         private int ctr = 0;
-        private Item[] copy;
 
         public RQIterator()
         {
-            copy = (Item[]) new Object[size()];
+            n = size;
+            expectedModCount = modCount;
+
+            int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, n - 1));
+            halfBits = Math.max(1, (bits + 1) / 2);
+            halfMask = (1 << halfBits) - 1;
 
-            for (int i = 0; i < size(); i++)
+            for (int i = 0; i < ROUNDS; i++)
             {
-                copy[i] = items[i];
+                keys[i] = random.nextInt(Integer.MAX_VALUE);
             }
-
-            StdRandom.shuffle(copy, 0, size());
         }
 
         @Override
         public boolean hasNext()
         {
-            return ctr < size;
+            return ctr < n;
         }
 
         @Override
@@ -135,8 +333,45 @@ public class RandomizedQueue<Item> implements Iterable<Item>
             {
                 throw new NoSuchElementException();
             }
+            if (modCount != expectedModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+
+            long index;
+            do
+            {
+                index = permute(position++);
+            }
+            while (index >= n);
 
-            return copy[ctr++];
+            ctr++;
+            return items[(int) index];
+        }
+
+        // the domain has up to 32 bits once n exceeds 2^30, so the halves
+        // are joined in a long to keep the result non-negative
+        private long permute(long value)
+        {
+            int left = (int) (value >>> halfBits);
+            int right = (int) value & halfMask;
+
+            for (int key : keys)
+            {
+                final int mixed = left ^ (round(right, key) & halfMask);
+                left = right;
+                right = mixed;
+            }
+
+            return ((long) left << halfBits) | right;
+        }
+
+        private int round(int value, int key)
+        {
+            int h = (value ^ key) * 0x9E3779B9;
+            h ^= h >>> 15;
+            h *= 0x85EBCA6B;
+            return h ^ (h >>> 13);
         }
 
         @Override
@@ -179,5 +414,9 @@ public class RandomizedQueue<Item> implements Iterable<Item>
         StdOut.println(queue.dequeue());
         StdOut.println(queue.dequeue());
         StdOut.println(queue.sample());
+        StdOut.println(queue.sample(3));
+        StdOut.println(queue.dequeue(5) + " size: " + queue.size());
+        queue.enqueueAll(new Integer[] { 100, 101, 102 });
+        StdOut.println("size: " + queue.size());
     }
 }
\ No newline at end of file
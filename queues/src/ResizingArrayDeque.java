@@ -0,0 +1,184 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class ResizingArrayDeque<Item> implements Iterable<Item>
+{
+    private static final int INIT_CAPACITY = 8;
+
+    // circular buffer; its length is always a power of two so that
+    // positions wrap with a mask instead of a division
+    private Item[] items;
+    private int head;
+    private int size;
+
+    // construct an empty deque
+    public ResizingArrayDeque()
+    {
+        items = (Item[]) new Object[INIT_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public int size()
+    {
+        return size;
+    }
+
+    // add the item to the front
+    public void addFirst(Item item)
+    {
+        if (item == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        if (size == items.length)
+        {
+            resizeArray(items.length * 2);
+        }
+
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+    }
+
+    // add the item to the back
+    public void addLast(Item item)
+    {
+        if (item == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        if (size == items.length)
+        {
+            resizeArray(items.length * 2);
+        }
+
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    // remove and return the item from the front
+    public Item removeFirst()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+
+        final Item removed = items[head];
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
+        size--;
+
+        shrinkIfSparse();
+        return removed;
+    }
+
+    // remove and return the item from the back
+    public Item removeLast()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+
+        final int last = (head + size - 1) & (items.length - 1);
+        final Item removed = items[last];
+        items[last] = null;
+        size--;
+
+        shrinkIfSparse();
+        return removed;
+    }
+
+    private void shrinkIfSparse()
+    {
+        if (items.length > INIT_CAPACITY && size == items.length / 4)
+        {
+            resizeArray(items.length / 2);
+        }
+    }
+
+    // copies the items to the start of a new array of the given length
+    private void resizeArray(int newSize)
+    {
+        Item[] copy = (Item[]) new Object[newSize];
+
+        final int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, copy, 0, firstPart);
+        System.arraycopy(items, 0, copy, firstPart, size - firstPart);
+
+        items = copy;
+        head = 0;
+    }
+
+    // return an iterator over items in order from front to back
+    public Iterator<Item> iterator()
+    {
+        return new Iterator<Item>()
+        {
+            private int ctr = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return ctr < size;
+            }
+
+            @Override
+            public Item next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+
+                return items[(head + ctr++) & (items.length - 1)];
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    // unit testing (required)
+    public static void main(String[] args)
+    {
+        ResizingArrayDeque<Integer> numbers = new ResizingArrayDeque<>();
+
+        numbers.addLast(5);
+        StdOut.println("removefirst: " + numbers.removeFirst());
+        numbers.addFirst(6);
+        StdOut.println("removelast: " + numbers.removeLast());
+        numbers.addLast(4);
+        numbers.addFirst(7);
+        numbers.addLast(3);
+        StdOut.println("removelast: " + numbers.removeLast());
+        numbers.addLast(2);
+        numbers.addFirst(8);
+        numbers.addLast(1);
+        numbers.addFirst(9);
+        StdOut.println("removelast: " + numbers.removeLast());
+
+        for (Integer num : numbers)
+        {
+            StdOut.println(num);
+        }
+
+        StdOut.println("size: " + numbers.size());
+    }
+}
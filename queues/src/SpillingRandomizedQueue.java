@@ -0,0 +1,462 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.princeton.cs.algs4.StdOut;
+
+// Randomized queue of strings kept in memory-mapped files instead of on
+// the heap. Each string is appended to an arena file as a length-prefixed
+// UTF-8 record, and a second file holds one long arena offset per item,
+// playing the part of RandomizedQueue's items array. Both files are mapped
+// lazily in fixed-size segments, so the heap only holds the segment table
+// and the operating system pages records in and out as they are touched.
+// Dequeued records leave holes in the arena; once they outweigh the live
+// records (and the arena is past one segment) the live records are copied
+// to a second arena file and the two files swap roles. The spill files so
+// stay within about twice the peak live data however long the queue runs,
+// and reusing the spare file's mappings means no segment is mapped twice
+// (a mapping is only released when the garbage collector gets to it).
+public class SpillingRandomizedQueue implements Iterable<String>, Closeable
+{
+    private static final int DEFAULT_SEGMENT_BITS = 26;
+
+    private final Path directory;
+    private final MappedFile offsets;
+    private MappedFile arena;
+    // the other arena file, created by the first compaction
+    private MappedFile spare;
+    private final RandomSource random;
+    private long size;
+    private long arenaEnd;
+    // bytes of the records still referenced from offsets
+    private long liveBytes;
+    private int modCount;
+
+    // construct an empty queue spilling to new files in directory
+    public SpillingRandomizedQueue(Path directory)
+    {
+        this(directory, RandomSource.threadLocal());
+    }
+
+    // construct an empty queue spilling to new files in directory and
+    // drawing from the given source
+    public SpillingRandomizedQueue(Path directory, RandomSource random)
+    {
+        this(directory, random, DEFAULT_SEGMENT_BITS);
+    }
+
+    // segments of 2^segmentBits bytes also bound the length of one record
+    SpillingRandomizedQueue(Path directory, RandomSource random,
+            int segmentBits)
+    {
+        if (directory == null || random == null || segmentBits < 3
+                || segmentBits > 30)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        this.directory = directory;
+        this.random = random;
+        offsets = MappedFile.create(directory, ".offsets", segmentBits);
+        arena = MappedFile.create(directory, ".arena", segmentBits);
+    }
+
+    // is the queue empty?
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    // return the number of items on the queue
+    public long size()
+    {
+        return size;
+    }
+
+    // add the item
+    public void enqueue(String item)
+    {
+        if (item == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        final byte[] bytes = item.getBytes(StandardCharsets.UTF_8);
+        final long record = Integer.BYTES + (long) bytes.length;
+        if (record > arena.segmentSize)
+        {
+            throw new IllegalArgumentException("item too long to spill");
+        }
+
+        arenaEnd = arena.place(arenaEnd, record);
+        final ByteBuffer view = arena.view(arenaEnd);
+        view.putInt(bytes.length);
+        view.put(bytes);
+
+        offsets.view(size << 3).putLong(arenaEnd);
+        arenaEnd += record;
+        liveBytes += record;
+        size++;
+        modCount++;
+    }
+
+    // remove and return a random item
+    public String dequeue()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+
+        final long randomIndex = randomIndex(size);
+        final ByteBuffer slot = offsets.view(randomIndex << 3);
+        final long removed = slot.getLong(slot.position());
+        slot.putLong(offsets.view((size - 1) << 3).getLong());
+        size--;
+        modCount++;
+
+        final String item = read(removed);
+        liveBytes -= Integer.BYTES + arena.view(removed).getInt();
+        if (size == 0)
+        {
+            arenaEnd = 0;
+        }
+        else if (arenaEnd > arena.segmentSize && liveBytes < arenaEnd / 2)
+        {
+            compact();
+        }
+        return item;
+    }
+
+    // copies the live records, in offsets order, to the spare arena and
+    // points offsets at the copies; offsets are only rewritten once every
+    // record has been copied, so a failed copy leaves the queue as it was
+    private void compact()
+    {
+        if (spare == null)
+        {
+            spare = MappedFile.create(directory, ".arena", arena.segmentBits);
+        }
+
+        final MappedFile target = spare;
+        long end = 0;
+        for (long i = 0; i < size; i++)
+        {
+            final ByteBuffer source =
+                    arena.view(offsets.view(i << 3).getLong());
+            final int record =
+                    Integer.BYTES + source.getInt(source.position());
+            source.limit(source.position() + record);
+
+            end = target.place(end, record);
+            target.view(end).put(source);
+            end += record;
+        }
+
+        end = 0;
+        for (long i = 0; i < size; i++)
+        {
+            final ByteBuffer slot = offsets.view(i << 3);
+            final int record = Integer.BYTES
+                    + arena.view(slot.getLong(slot.position())).getInt();
+            end = target.place(end, record);
+            slot.putLong(end);
+            end += record;
+        }
+
+        spare = arena;
+        arena = target;
+        arenaEnd = end;
+        modCount++;
+    }
+
+    // return a random item (but do not remove it)
+    public String sample()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+
+        return read(offsets.view(randomIndex(size) << 3).getLong());
+    }
+
+    private String read(long position)
+    {
+        final ByteBuffer view = arena.view(position);
+        final byte[] bytes = new byte[view.getInt()];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // uniform index in [0, bound), rejecting the biased top of the range
+    // when bound does not fit in an int
+    private long randomIndex(long bound)
+    {
+        if (bound <= Integer.MAX_VALUE)
+        {
+            return random.nextInt((int) bound);
+        }
+
+        long bits;
+        long value;
+        do
+        {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+        }
+        while (bits - value + (bound - 1) < 0);
+
+        return value;
+    }
+
+    // Same walk as RandomizedQueue's iterator, widened to long indices: a
+    // keyed Feistel permutation over the smallest 2h-bit domain holding
+    // size items, skipping values outside [0, size).
+    private final class SpillingIterator implements Iterator<String>
+    {
+        private static final int ROUNDS = 8;
+
+        private final long[] keys = new long[ROUNDS];
+        private final long n;
+        private final int halfBits;
+        private final long halfMask;
+        private final int expectedModCount;
+        private long position = 0;
+        private long ctr = 0;
+
+        public SpillingIterator()
+        {
+            n = size;
+            expectedModCount = modCount;
+
+            int bits = 64 - Long.numberOfLeadingZeros(Math.max(1, n - 1));
+            halfBits = Math.max(1, (bits + 1) / 2);
+            halfMask = (1L << halfBits) - 1;
+
+            for (int i = 0; i < ROUNDS; i++)
+            {
+                keys[i] = random.nextLong();
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return ctr < n;
+        }
+
+        @Override
+        public String next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+
+            long index;
+            do
+            {
+                index = permute(position++);
+            }
+            while (index >= n);
+
+            ctr++;
+            return read(offsets.view(index << 3).getLong());
+        }
+
+        private long permute(long value)
+        {
+            long left = value >>> halfBits;
+            long right = value & halfMask;
+
+            for (long key : keys)
+            {
+                final long mixed = left ^ (round(right, key) & halfMask);
+                left = right;
+                right = mixed;
+            }
+
+            return (left << halfBits) | right;
+        }
+
+        private long round(long value, long key)
+        {
+            long h = (value ^ key) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+            h *= 0xBF58476D1CE4E5B9L;
+            return h ^ (h >>> 29);
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // return an independent iterator over items in random order
+    public Iterator<String> iterator()
+    {
+        return new SpillingIterator();
+    }
+
+    // closes and deletes the backing files; the mappings themselves are
+    // released when their buffers are garbage collected
+    @Override
+    public void close()
+    {
+        try
+        {
+            offsets.close();
+        }
+        finally
+        {
+            try
+            {
+                arena.close();
+            }
+            finally
+            {
+                if (spare != null)
+                {
+                    spare.close();
+                }
+            }
+        }
+    }
+
+    // A file mapped one segment at a time, on first touch, growing the
+    // segment table by doubling.
+    private static final class MappedFile
+    {
+        private final Path file;
+        private final FileChannel channel;
+        private final int segmentBits;
+        private final long segmentSize;
+        private final long segmentMask;
+        private MappedByteBuffer[] segments = new MappedByteBuffer[8];
+
+        private MappedFile(Path file, int segmentBits) throws IOException
+        {
+            this.file = file;
+            this.segmentBits = segmentBits;
+            segmentSize = 1L << segmentBits;
+            segmentMask = segmentSize - 1;
+            channel = FileChannel.open(file, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        // a new empty file in directory
+        static MappedFile create(Path directory, String suffix,
+                int segmentBits)
+        {
+            try
+            {
+                return new MappedFile(
+                        Files.createTempFile(directory, "rq", suffix),
+                        segmentBits);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // position at or after end where a record of length bytes fits
+        // without straddling two segments
+        long place(long end, long length)
+        {
+            final long room = segmentSize - (end & segmentMask);
+            return length > room ? end + room : end;
+        }
+
+        // a buffer positioned at byte position of the file; reads and
+        // writes through it must stay within one segment
+        ByteBuffer view(long position)
+        {
+            final int index = (int) (position >>> segmentBits);
+            if (index >= segments.length)
+            {
+                MappedByteBuffer[] copy = new MappedByteBuffer[
+                        Math.max(segments.length * 2, index + 1)];
+                System.arraycopy(segments, 0, copy, 0, segments.length);
+                segments = copy;
+            }
+
+            if (segments[index] == null)
+            {
+                try
+                {
+                    segments[index] = channel.map(
+                            FileChannel.MapMode.READ_WRITE,
+                            (long) index << segmentBits, segmentSize);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            final ByteBuffer view = segments[index].duplicate();
+            view.position((int) (position & segmentMask));
+            return view;
+        }
+
+        void close()
+        {
+            try
+            {
+                channel.close();
+                Files.deleteIfExists(file);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // unit testing (required)
+    public static void main(String[] args) throws IOException
+    {
+        final Path directory = Files.createTempDirectory("spill");
+        try (SpillingRandomizedQueue queue =
+                new SpillingRandomizedQueue(directory))
+        {
+            for (int i = 0; i < 20; i++)
+            {
+                queue.enqueue("item-" + i);
+            }
+
+            for (String item : queue)
+            {
+                StdOut.print(item + " ");
+            }
+            StdOut.println();
+
+            StdOut.println("size: " + queue.size());
+            StdOut.println(queue.sample());
+            while (!queue.isEmpty())
+            {
+                StdOut.print(queue.dequeue() + " ");
+            }
+            StdOut.println();
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,222 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import edu.princeton.cs.algs4.StdOut;
+
+// Chase-Lev work-stealing deque. One owner thread adds and removes at the
+// front; any number of thieves steal from the back. Owner operations only
+// need a CAS when they race a thief for the very last item, and a steal
+// that loses a race simply fails instead of retrying.
+public class WorkStealingDeque<Item>
+{
+    private static final int INIT_CAPACITY = 8;
+
+    // items live at logical positions [top, bottom), stored at the position
+    // masked by the length of the power-of-two buffer
+    private volatile AtomicReferenceArray<Item> items;
+    private final AtomicLong top;
+    private final AtomicLong bottom;
+    // positions below this hold no reference left behind by a steal
+    // (owner only)
+    private long cleared;
+
+    // construct an empty deque
+    public WorkStealingDeque()
+    {
+        items = new AtomicReferenceArray<>(INIT_CAPACITY);
+        top = new AtomicLong();
+        bottom = new AtomicLong();
+    }
+
+    // is the deque empty? exact only for the owner when nobody steals
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    // return the number of items on the deque, a snapshot if others steal
+    public int size()
+    {
+        final long count = bottom.get() - top.get();
+        return (int) Math.max(0, count);
+    }
+
+    // add the item to the front (owner only)
+    public void addFirst(Item item)
+    {
+        if (item == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        final long b = bottom.get();
+        final long t = top.get();
+        AtomicReferenceArray<Item> buffer = items;
+
+        if (b - t >= buffer.length())
+        {
+            buffer = resizeArray(buffer, t, b);
+        }
+        clearStolen(buffer, t, b);
+
+        buffer.lazySet((int) b & (buffer.length() - 1), item);
+        // release: a thief that sees the new bottom also sees the item
+        bottom.lazySet(b + 1);
+    }
+
+    // remove and return the item from the front (owner only)
+    public Item removeFirst()
+    {
+        final Item item = pollFirst();
+
+        if (item == null)
+        {
+            throw new NoSuchElementException();
+        }
+
+        return item;
+    }
+
+    // remove and return the item from the front, or null if there is none
+    // (owner only)
+    public Item pollFirst()
+    {
+        final long b = bottom.get() - 1;
+        final AtomicReferenceArray<Item> buffer = items;
+        // a volatile write followed by a volatile read of top, so the owner
+        // and a thief never both see the same last item as theirs
+        bottom.set(b);
+        final long t = top.get();
+        clearStolen(buffer, t, b + 1);
+
+        if (t > b)
+        {
+            bottom.set(b + 1);
+            return null;
+        }
+
+        final int slot = (int) b & (buffer.length() - 1);
+        final Item item = buffer.get(slot);
+
+        if (t < b)
+        {
+            // no thief can reach this slot while others are ahead of it
+            buffer.lazySet(slot, null);
+            return item;
+        }
+
+        // last item: whoever moves top first takes it
+        final boolean won = top.compareAndSet(t, t + 1);
+        bottom.set(b + 1);
+        return won ? item : null;
+    }
+
+    // take the item at the back, or return null if the deque looked empty
+    // or another thread took that item first (any thread)
+    public Item steal()
+    {
+        final long t = top.get();
+        final long b = bottom.get();
+
+        if (t >= b)
+        {
+            return null;
+        }
+
+        final AtomicReferenceArray<Item> buffer = items;
+        final Item item = buffer.get((int) t & (buffer.length() - 1));
+
+        // thieves cannot clear the slot: after this CAS the owner may
+        // already be reusing it, possibly for the same item, so the owner
+        // clears it in clearStolen() instead
+        if (!top.compareAndSet(t, t + 1))
+        {
+            return null;
+        }
+
+        return item;
+    }
+
+    // nulls the slots of positions below t that thieves took, so stolen
+    // items are not kept reachable (owner only). No steal can succeed on a
+    // position below top any more, and only slots not shared with a live
+    // position in [t, b) are touched; each position is cleared once.
+    private void clearStolen(AtomicReferenceArray<Item> buffer, long t, long b)
+    {
+        final int mask = buffer.length() - 1;
+        for (long i = Math.max(cleared, b - buffer.length()); i < t; i++)
+        {
+            buffer.lazySet((int) i & mask, null);
+        }
+        cleared = Math.max(cleared, t);
+    }
+
+    // copies the live positions into a buffer twice as long (owner only);
+    // thieves still reading the old buffer find the same items there
+    private AtomicReferenceArray<Item> resizeArray(
+            AtomicReferenceArray<Item> buffer, long t, long b)
+    {
+        final AtomicReferenceArray<Item> copy =
+                new AtomicReferenceArray<>(buffer.length() * 2);
+
+        for (long i = t; i < b; i++)
+        {
+            copy.lazySet((int) i & (copy.length() - 1),
+                    buffer.get((int) i & (buffer.length() - 1)));
+        }
+
+        items = copy;
+        return copy;
+    }
+
+    // unit testing (required)
+    public static void main(String[] args) throws InterruptedException
+    {
+        final WorkStealingDeque<Integer> tasks = new WorkStealingDeque<>();
+        final int n = 1000000;
+        final AtomicLong stolen = new AtomicLong();
+
+        final Thread thief = new Thread(() ->
+        {
+            int misses = 0;
+            while (misses < 1000000)
+            {
+                final Integer task = tasks.steal();
+                if (task == null)
+                {
+                    misses++;
+                }
+                else
+                {
+                    stolen.addAndGet(task);
+                }
+            }
+        });
+        thief.start();
+
+        long owned = 0;
+        for (int i = 1; i <= n; i++)
+        {
+            tasks.addFirst(i);
+            if (i % 3 == 0)
+            {
+                final Integer task = tasks.pollFirst();
+                if (task != null)
+                {
+                    owned += task;
+                }
+            }
+        }
+
+        Integer task;
+        while ((task = tasks.pollFirst()) != null)
+        {
+            owned += task;
+        }
+        thief.join();
+
+        StdOut.println("sum: " + (owned + stolen.get()));
+        StdOut.println("expected: " + (long) n * (n + 1) / 2);
+    }
+}